@@ -0,0 +1,37 @@
+// Writes .gz and .br siblings for the built assets so Spring can serve them precompressed.
+// Runs after `vite build`; uses only Node's zlib.
+import { readdir, readFile, stat, writeFile } from 'node:fs/promises'
+import path from 'node:path'
+import { fileURLToPath } from 'node:url'
+import { brotliCompressSync, constants, gzipSync } from 'node:zlib'
+
+const outDir = path.resolve(path.dirname(fileURLToPath(import.meta.url)), '../../src/main/resources/static')
+const COMPRESSIBLE = new Set(['.js', '.mjs', '.css', '.html', '.json', '.svg', '.txt', '.map', '.ico'])
+const MIN_SIZE = 1024
+
+async function* walk(dir) {
+  for (const entry of await readdir(dir, { withFileTypes: true })) {
+    const file = path.join(dir, entry.name)
+    if (entry.isDirectory()) yield* walk(file)
+    else yield file
+  }
+}
+
+let count = 0
+for await (const file of walk(outDir)) {
+  if (!COMPRESSIBLE.has(path.extname(file)) || (await stat(file)).size < MIN_SIZE) continue
+
+  const source = await readFile(file)
+  const gzip = gzipSync(source, { level: 9 })
+  const brotli = brotliCompressSync(source, {
+    params: {
+      [constants.BROTLI_PARAM_QUALITY]: constants.BROTLI_MAX_QUALITY,
+      [constants.BROTLI_PARAM_SIZE_HINT]: source.length,
+    },
+  })
+  // Only keep variants that are actually smaller
+  if (gzip.length < source.length) await writeFile(`${file}.gz`, gzip)
+  if (brotli.length < source.length) await writeFile(`${file}.br`, brotli)
+  count++
+}
+console.log(`compress: wrote precompressed variants for ${count} files in ${path.relative(process.cwd(), outDir)}`)
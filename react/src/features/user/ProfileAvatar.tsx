@@ -2,6 +2,7 @@ import { useRef, useState } from "react";
 import { Avatar, Confirm } from "../../shared/components";
 import { PencilSquareIcon, PlusIcon, TrashIcon } from "@heroicons/react/24/outline";
 import type { UserInfo } from "./user.types";
+import { useProfileImage } from "./useProfileImage";
 
 interface ProfileAvatarProps { user: UserInfo | null; onImageSelected: (file: File) => void; onImageDeleted: () => void; }
 
@@ -9,6 +10,7 @@ export default function ProfileAvatar({ user, onImageSelected, onImageDeleted }
     const fileInputRef = useRef<HTMLInputElement | null>(null);
     const [error, setError] = useState<string | null>(null);
     const [showConfirmDelete, setShowConfirmDelete] = useState(false);
+    const imageUrl = useProfileImage(user?.profileImageUrl ?? user?.initialsAvatarUrl, 80);
 
     const selectUploadImage = () => {
         fileInputRef.current?.click();
@@ -48,11 +50,7 @@ export default function ProfileAvatar({ user, onImageSelected, onImageDeleted }
                 <div className="relative group">
                     <Avatar
                         name={user.name}
-                        imageUrl={
-                            user?.profileImage
-                                ? `data:image/png;base64,${user.profileImage}`
-                                : undefined
-                        }
+                        imageUrl={imageUrl}
                         size={80}
                         bgColor="bg-gray-400"
                         textColor="text-white"
@@ -64,14 +62,14 @@ export default function ProfileAvatar({ user, onImageSelected, onImageDeleted }
                        bg-black/50 rounded-full opacity-0 group-hover:opacity-100 
                        transition"
                     >
-                        {user?.profileImage ? (
+                        {user?.profileImageUrl ? (
                             <PencilSquareIcon className="h-6 w-6 text-white transform" />
                         ) : (
                             <PlusIcon className="h-6 w-6 text-white" />
                         )}
                     </button>
 
-                    {user?.profileImage && (
+                    {user?.profileImageUrl && (
                         <button
                             onClick={confirmDelete}
                             className="absolute bottom-0 right-0 flex items-center justify-center 
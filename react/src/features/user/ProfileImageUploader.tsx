@@ -1,11 +1,17 @@
 import { useState, useRef } from "react";
 import { useAuth } from "../auth";
+import { uploadProfileImage } from "./uploadProfileImage";
+import { useProfileImage } from "./useProfileImage";
+import { useUser } from "./UserContext";
 
 export default function ProfileImageUploader() {
   const { apiClient } = useAuth();
+  const { user, setUser } = useUser();
   const [error, setError] = useState<string | null>(null);
   const [success, setSuccess] = useState(false);
-  const [preview, setPreview] = useState<string | null>(null);
+  const [processing, setProcessing] = useState(false);
+  const [previewUrl, setPreviewUrl] = useState<string | null>(null);
+  const preview = useProfileImage(previewUrl, 64);
 
   const fileInputRef = useRef<HTMLInputElement | null>(null);
 
@@ -22,28 +28,21 @@ export default function ProfileImageUploader() {
       return;
     }
 
+    setProcessing(true);
     try {
-      const formData = new FormData();
-      formData.append("file", file);
-
-      const response = await apiClient("/api/user/profile-image", {
-        method: "POST",
-        body: formData,
-      });
-
-      if (!response.ok) {
-        throw new Error("Failed to upload image");
+      const job = await uploadProfileImage(apiClient, file);
+      if (job.profileImageUrl) {
+        setPreviewUrl(job.profileImageUrl);
+        if (user) {
+          setUser({ ...user, profileImageUrl: job.profileImageUrl });
+        }
       }
-
-      const data = await response.json();
-      if (data.imageData) {
-        setPreview(data.imageData);
-      }
-
       setSuccess(true);
     } catch (err) {
       console.error(err);
-      setError("Failed to upload image");
+      setError(err instanceof Error ? err.message : "Failed to upload image");
+    } finally {
+      setProcessing(false);
     }
   };
 
@@ -53,7 +52,7 @@ export default function ProfileImageUploader() {
       {preview && (
         <div className="mb-4 flex justify-center">
           <img
-            src={`data:image/jpeg;base64,${preview}`}
+            src={preview}
             alt="Profile preview"
             className="w-16 h-16 rounded-full object-cover border"
           />
@@ -73,9 +72,10 @@ export default function ProfileImageUploader() {
       <button
         type="button"
         onClick={() => fileInputRef.current?.click()}
+        disabled={processing}
         className="px-4 py-2 bg-indigo-600 text-white rounded hover:bg-indigo-700"
       >
-        Select & Upload Image
+        {processing ? "Processing..." : "Select & Upload Image"}
       </button>
 
       {error && <p className="text-red-500 mt-2">{error}</p>}
@@ -4,11 +4,13 @@ import { Avatar, Confirm } from "../../shared/components";
 import { useState } from "react";
 import { useLogout } from "../auth";
 import { useUser } from "./UserContext";
+import { useProfileImage } from "./useProfileImage";
 
 export default function UserMenu() {
   const { logout, loading } = useLogout();
   const { user } = useUser();
   const [showConfirm, setShowConfirm] = useState(false);
+  const imageUrl = useProfileImage(user?.profileImageUrl ?? user?.initialsAvatarUrl, 32);
 
   if (!user) return null;
 
@@ -18,7 +20,7 @@ export default function UserMenu() {
         <span className="sr-only">Open user menu</span>
         <Avatar
           name={user?.name ?? "?"}
-          imageUrl={user?.profileImage ? `data:image/png;base64,${user.profileImage}` : ""}
+          imageUrl={imageUrl ?? ""}
           size={32}
           bgColor="bg-gray-400"
           textColor="text-white"
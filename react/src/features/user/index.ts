@@ -2,4 +2,6 @@ export { default as UserMenu } from "./UserMenu";
 export { default as ProfileAvatar } from "./ProfileAvatar";
 export { default as ProfileImageUploader } from "./ProfileImageUploader";
 export * from "./UserContext";
+export * from "./useProfileImage";
+export * from "./uploadProfileImage";
 export * from "./user.types";
\ No newline at end of file
@@ -0,0 +1,56 @@
+import type { ProfileImageJob } from "./user.types";
+
+type ApiClient = (input: RequestInfo | URL, init?: RequestInit) => Promise<Response>;
+
+const POLL_INTERVAL_MS = 300;
+const MAX_POLL_INTERVAL_MS = 2000;
+const TIMEOUT_MS = 30000;
+
+const sleep = (ms: number) => new Promise(resolve => setTimeout(resolve, ms));
+
+/**
+ * Uploads a profile image and waits for the server to finish processing it.
+ * The upload is answered with 202; the job is then polled with backoff until
+ * it is DONE (resolves with the job, including the new profileImageUrl) or
+ * FAILED (rejects with the server's message).
+ */
+export async function uploadProfileImage(apiClient: ApiClient, file: File): Promise<ProfileImageJob> {
+  const formData = new FormData();
+  formData.append("file", file);
+
+  const response = await apiClient("/api/user/profile-image", {
+    method: "POST",
+    body: formData,
+  });
+  if (!response.ok) {
+    throw new Error((await response.text()) || "Failed to upload image");
+  }
+
+  let job: ProfileImageJob = await response.json();
+  const statusUrl = response.headers.get("Location") ?? "/api/user/profile-image/status";
+  const deadline = Date.now() + TIMEOUT_MS;
+  let interval = POLL_INTERVAL_MS;
+
+  while (job.state === "QUEUED" || job.state === "PROCESSING") {
+    if (Date.now() > deadline) {
+      throw new Error("Image processing is taking too long");
+    }
+    await sleep(interval);
+    interval = Math.min(interval * 2, MAX_POLL_INTERVAL_MS);
+
+    const status = await apiClient(statusUrl);
+    if (!status.ok) {
+      throw new Error("Failed to read upload status");
+    }
+    const latest: ProfileImageJob = await status.json();
+    if (latest.jobId !== job.jobId) {
+      throw new Error("Upload was replaced by a newer one");
+    }
+    job = latest;
+  }
+
+  if (job.state === "FAILED") {
+    throw new Error(job.error || "Failed to process image");
+  }
+  return job;
+}
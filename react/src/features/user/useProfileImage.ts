@@ -0,0 +1,51 @@
+import { useEffect, useState } from "react";
+import { useAuth } from "../auth";
+
+/**
+ * Loads the avatar behind `profileImageUrl` with the authenticated client and
+ * returns an object URL for <img>. The URL is versioned, so the browser cache
+ * serves repeat loads; the object URL is revoked when the image changes.
+ *
+ * `displaySize` is the rendered size in CSS pixels; the server returns the
+ * nearest stored size for it at the screen's pixel density.
+ */
+export function useProfileImage(profileImageUrl: string | null | undefined, displaySize?: number) {
+  const { apiClient } = useAuth();
+  const [objectUrl, setObjectUrl] = useState<string | undefined>(undefined);
+  const pixelSize = displaySize ? Math.ceil(displaySize * (window.devicePixelRatio || 1)) : undefined;
+
+  useEffect(() => {
+    if (!profileImageUrl) {
+      setObjectUrl(undefined);
+      return;
+    }
+    const url = pixelSize
+      ? `${profileImageUrl}${profileImageUrl.includes("?") ? "&" : "?"}size=${pixelSize}`
+      : profileImageUrl;
+
+    let cancelled = false;
+    let created: string | undefined;
+
+    const load = async () => {
+      try {
+        const response = await apiClient(url);
+        if (!response.ok) return;
+        const blob = await response.blob();
+        if (cancelled) return;
+        created = URL.createObjectURL(blob);
+        setObjectUrl(created);
+      } catch {
+        if (!cancelled) setObjectUrl(undefined);
+      }
+    };
+
+    load();
+
+    return () => {
+      cancelled = true;
+      if (created) URL.revokeObjectURL(created);
+    };
+  }, [profileImageUrl, pixelSize, apiClient]);
+
+  return objectUrl;
+}
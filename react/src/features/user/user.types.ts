@@ -5,10 +5,23 @@ export interface UserInfo {
   roles: string[];
   createdAt: string;
   updatedAt: string;
-  profileImage: string | null;
+  profileImageUrl: string | null;
+  // Generated initials avatar, shown when profileImageUrl is null
+  initialsAvatarUrl?: string;
 }
 
 export interface UserContextType {
   user: UserInfo | null;
   setUser: (user: UserInfo | null) => void;
-}
\ No newline at end of file
+}
+
+export type ProfileImageJobState = "QUEUED" | "PROCESSING" | "DONE" | "FAILED";
+
+export interface ProfileImageJob {
+  jobId: string;
+  state: ProfileImageJobState;
+  submittedAt: string;
+  finishedAt?: string;
+  profileImageUrl?: string;
+  error?: string;
+}
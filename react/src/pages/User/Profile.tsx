@@ -1,7 +1,7 @@
 import { useNavigate } from "react-router-dom";
 import { Button, EditableText } from "../../shared/components";
 import { ProfileAvatar } from "../../features/user";
-import { useUser } from "../../features/user";
+import { useUser, uploadProfileImage } from "../../features/user";
 import { useAuth } from "../../features/auth";
 
 interface UserDto {
@@ -48,22 +48,10 @@ export default function Profile() {
   // ⬇️ NEW: Upload profile image (delegated from ProfileAvatar)
   const handleProfileImageUpload = async (file: File) => {
     try {
-      const formData = new FormData();
-      formData.append("file", file);
-
-      const response = await apiClient("/api/user/profile-image", {
-        method: "POST",
-        body: formData,
-      });
-
-      if (!response.ok) {
-        throw new Error("Failed to upload image");
-      }
-
-      // Backend returns updated user with new profileImage
-      const updatedUser = await response.json();
-      if (updatedUser) {
-        setUser(updatedUser);
+      // Resolves once the server has processed the image; the old one is shown until then
+      const job = await uploadProfileImage(apiClient, file);
+      if (user && job.profileImageUrl) {
+        setUser({ ...user, profileImageUrl: job.profileImageUrl });
       }
     } catch (err) {
       console.error("Image upload failed:", err);
@@ -81,9 +69,9 @@ export default function Profile() {
         throw new Error("Failed to delete image");
       }
 
-      // Manually update user to remove profileImage
+      // Manually update user to remove profileImageUrl
       if (user) {
-        setUser({ ...user, profileImage: null });
+        setUser({ ...user, profileImageUrl: null });
       }
     } catch (err) {
       console.error("Image delete failed:", err);
@@ -0,0 +1,39 @@
+package app.common;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Publishes a {@link ConcurrentLongCache}'s statistics using Micrometer's
+ * standard cache meter names (cache.gets, cache.evictions, cache.size), plus
+ * cache.weight for caches bounded by weight.
+ */
+public final class CacheMetrics {
+
+    private CacheMetrics() {
+    }
+
+    public static void register(MeterRegistry registry, String cacheName, ConcurrentLongCache<?> cache) {
+        FunctionCounter.builder("cache.gets", cache, ConcurrentLongCache::hitCount)
+                .tag("cache", cacheName)
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", cache, ConcurrentLongCache::missCount)
+                .tag("cache", cacheName)
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", cache, ConcurrentLongCache::evictionCount)
+                .tag("cache", cacheName)
+                .register(registry);
+        Gauge.builder("cache.size", cache, ConcurrentLongCache::size)
+                .tag("cache", cacheName)
+                .register(registry);
+        if (cache.isWeighted()) {
+            Gauge.builder("cache.weight", cache, ConcurrentLongCache::weight)
+                    .tag("cache", cacheName)
+                    .description("Summed weight of cached entries")
+                    .register(registry);
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package app.common;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongFunction;
+import java.util.function.ToIntFunction;
+
+/**
+ * Size- and TTL-bounded in-process cache keyed by primitive long.
+ *
+ * Entries are spread over lock stripes, each a fixed-size open-addressing table
+ * (so keys are never boxed). When a stripe is full, a CLOCK sweep evicts an
+ * expired or not-recently-read entry. Hit, miss and eviction counts are kept
+ * for metrics.
+ *
+ * A cache built with a weigher is also bounded by total weight (e.g. bytes):
+ * each stripe evicts until the new entry fits its share of the budget, and an
+ * entry heavier than that share is not cached at all.
+ *
+ * Each stripe counts its invalidations. {@link #getOrLoad} reads the count
+ * before loading and drops its put if the count moved, so a load that raced
+ * an invalidation cannot put back the value the invalidation removed.
+ */
+public class ConcurrentLongCache<V> {
+
+    private static final int STRIPES = 16;
+
+    private final Segment<V>[] segments;
+    private final long ttlNanos;
+    private final ToIntFunction<? super V> weigher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maxEntries upper bound on cached entries (spread evenly over stripes)
+     * @param ttlMillis  time an entry may be served after it was stored; 0 or less means no expiry
+     */
+    public ConcurrentLongCache(int maxEntries, long ttlMillis) {
+        this(maxEntries, ttlMillis, Long.MAX_VALUE, null);
+    }
+
+    /**
+     * @param maxWeight upper bound on the summed weight of cached entries (spread evenly over stripes)
+     * @param weigher   weight of a value, e.g. its size in bytes; null weighs nothing
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongCache(int maxEntries, long ttlMillis, long maxWeight, ToIntFunction<? super V> weigher) {
+        int perSegment = Math.max(1, maxEntries / STRIPES);
+        long weightPerSegment = weigher != null ? Math.max(1, maxWeight / STRIPES) : Long.MAX_VALUE;
+        this.segments = new Segment[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            segments[i] = new Segment<>(perSegment, weightPerSegment);
+        }
+        this.ttlNanos = ttlMillis > 0 ? ttlMillis * 1_000_000L : 0L;
+        this.weigher = weigher;
+    }
+
+    public V get(long key) {
+        long h = mix(key);
+        V value = segmentFor(h).get(key, h, System.nanoTime());
+        if (value != null) {
+            hits.increment();
+        } else {
+            misses.increment();
+        }
+        return value;
+    }
+
+    /**
+     * Returns the cached value or loads it outside any lock. Null results are not cached,
+     * and neither is a value loaded while an invalidation hit the key's stripe.
+     */
+    public V getOrLoad(long key, LongFunction<V> loader) {
+        V value = get(key);
+        if (value == null) {
+            long h = mix(key);
+            long invalidations = segmentFor(h).invalidations();
+            value = loader.apply(key);
+            if (value != null) {
+                put(key, h, value, invalidations);
+            }
+        }
+        return value;
+    }
+
+    public void put(long key, V value) {
+        put(key, mix(key), value, -1);
+    }
+
+    // invalidations < 0 puts unconditionally
+    private void put(long key, long h, V value, long invalidations) {
+        long now = System.nanoTime();
+        long expiresAt = ttlNanos > 0 ? now + ttlNanos : Long.MAX_VALUE;
+        int weight = weigher != null ? weigher.applyAsInt(value) : 0;
+        evictions.add(segmentFor(h).put(key, h, value, weight, expiresAt, now, invalidations));
+    }
+
+    public void invalidate(long key) {
+        long h = mix(key);
+        segmentFor(h).remove(key, h);
+    }
+
+    public void invalidateAll() {
+        for (Segment<V> segment : segments) {
+            segment.clear();
+        }
+    }
+
+    public long size() {
+        long size = 0;
+        for (Segment<V> segment : segments) {
+            size += segment.size();
+        }
+        return size;
+    }
+
+    public boolean isWeighted() {
+        return weigher != null;
+    }
+
+    /**
+     * Summed weight of the cached entries; 0 without a weigher.
+     */
+    public long weight() {
+        long weight = 0;
+        for (Segment<V> segment : segments) {
+            weight += segment.weight();
+        }
+        return weight;
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public long evictionCount() {
+        return evictions.sum();
+    }
+
+    private Segment<V> segmentFor(long h) {
+        return segments[(int) (h >>> 60)];
+    }
+
+    // Murmur3 finalizer: spreads sequential ids over stripes and slots
+    static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // ---------------------------
+    // SEGMENT
+    // ---------------------------
+
+    private static final class Segment<V> {
+        private final int maxEntries;
+        private final long maxWeight;
+        private final long[] keys;
+        private final Object[] values;   // null marks an empty slot
+        private final long[] expiresAt;
+        private final int[] weights;
+        private final boolean[] referenced;
+        private final int mask;
+        private int size;
+        private long weight;
+        private int hand;
+        private long invalidations; // remove() and clear() calls; evictions and expiry do not count
+
+        Segment(int maxEntries, long maxWeight) {
+            this.maxEntries = maxEntries;
+            this.maxWeight = maxWeight;
+            int capacity = Integer.highestOneBit(Math.max(2, maxEntries * 2 - 1)) << 1; // load factor <= 0.5
+            this.keys = new long[capacity];
+            this.values = new Object[capacity];
+            this.expiresAt = new long[capacity];
+            this.weights = new int[capacity];
+            this.referenced = new boolean[capacity];
+            this.mask = capacity - 1;
+        }
+
+        @SuppressWarnings("unchecked")
+        synchronized V get(long key, long h, long now) {
+            int i = indexOf(key, h);
+            if (i < 0) {
+                return null;
+            }
+            if (expiresAt[i] - now <= 0) {
+                removeAt(i);
+                return null;
+            }
+            referenced[i] = true;
+            return (V) values[i];
+        }
+
+        /**
+         * Inserts or replaces the entry; returns the number of entries evicted to make room.
+         * Does nothing if {@code expectedInvalidations} is set and no longer matches.
+         */
+        synchronized int put(long key, long h, V value, int entryWeight, long expires, long now,
+                             long expectedInvalidations) {
+            if (expectedInvalidations >= 0 && expectedInvalidations != invalidations) {
+                return 0;
+            }
+            int i = indexOf(key, h);
+            if (i >= 0 && weights[i] == entryWeight) {
+                values[i] = value;
+                expiresAt[i] = expires;
+                referenced[i] = true;
+                return 0;
+            }
+            if (i >= 0) {
+                removeAt(i); // weight changed: re-insert so the budget is checked
+            }
+            if (entryWeight > maxWeight) {
+                return 0;
+            }
+            int evicted = 0;
+            while (size >= maxEntries || weight + entryWeight > maxWeight) {
+                evictOne(now);
+                evicted++;
+            }
+            i = (int) h & mask;
+            while (values[i] != null) {
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            expiresAt[i] = expires;
+            weights[i] = entryWeight;
+            referenced[i] = false;
+            size++;
+            weight += entryWeight;
+            return evicted;
+        }
+
+        synchronized void remove(long key, long h) {
+            invalidations++;
+            int i = indexOf(key, h);
+            if (i >= 0) {
+                removeAt(i);
+            }
+        }
+
+        synchronized void clear() {
+            invalidations++;
+            Arrays.fill(values, null);
+            size = 0;
+            weight = 0;
+        }
+
+        synchronized long invalidations() {
+            return invalidations;
+        }
+
+        synchronized int size() {
+            return size;
+        }
+
+        synchronized long weight() {
+            return weight;
+        }
+
+        // CLOCK: expired entries go first, otherwise the first entry not read since the last pass
+        private void evictOne(long now) {
+            for (int scanned = 0; scanned <= 2 * mask + 2; scanned++) {
+                int i = hand;
+                hand = (hand + 1) & mask;
+                if (values[i] == null) {
+                    continue;
+                }
+                if (expiresAt[i] - now <= 0 || !referenced[i]) {
+                    removeAt(i);
+                    return;
+                }
+                referenced[i] = false;
+            }
+        }
+
+        private int indexOf(long key, long h) {
+            int i = (int) h & mask;
+            while (values[i] != null) {
+                if (keys[i] == key) {
+                    return i;
+                }
+                i = (i + 1) & mask;
+            }
+            return -1;
+        }
+
+        // Backward-shift deletion keeps probe chains intact without tombstones
+        private void removeAt(int i) {
+            weight -= weights[i];
+            int gap = i;
+            int j = (i + 1) & mask;
+            while (values[j] != null) {
+                int home = (int) mix(keys[j]) & mask;
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    values[gap] = values[j];
+                    expiresAt[gap] = expiresAt[j];
+                    weights[gap] = weights[j];
+                    referenced[gap] = referenced[j];
+                    gap = j;
+                }
+                j = (j + 1) & mask;
+            }
+            values[gap] = null;
+            size--;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package app.common;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adaptive concurrency limit using the gradient of request latency.
+ *
+ * A long-term latency average stands in for the no-load RTT. Every sample
+ * window the limit is scaled by {@code tolerance * longRtt / shortRtt},
+ * clamped to [0.5, 1], and then given a sqrt(limit) allowance so it can probe
+ * upwards. When latency rises (e.g. requests queue on the connection pool) the
+ * limit shrinks and excess requests are refused early instead of waiting.
+ */
+public class GradientConcurrencyLimit {
+
+    private static final double TOLERANCE = 1.5;
+    private static final double SMOOTHING = 0.2;
+    private static final int LONG_WINDOW = 600;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+    private static final long WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // Guarded by this
+    private double estimatedLimit;
+    private double longRtt;
+    private long windowStart = System.nanoTime();
+    private long windowSum;
+    private int windowCount;
+    private int windowMaxInFlight;
+
+    public GradientConcurrencyLimit(int initialLimit, int minLimit, int maxLimit) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.estimatedLimit = initialLimit;
+        this.limit = initialLimit;
+    }
+
+    /**
+     * Admits the caller while fewer than {@code ceiling} requests are in flight.
+     */
+    public boolean tryAcquire(int ceiling) {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= ceiling) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases a slot admitted by {@link #tryAcquire(int)} and records its latency.
+     */
+    public void release(long rttNanos) {
+        int inFlightAtRelease = inFlight.getAndDecrement();
+        sample(rttNanos, inFlightAtRelease);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void sample(long rttNanos, int inFlightAtRelease) {
+        windowSum += rttNanos;
+        windowCount++;
+        windowMaxInFlight = Math.max(windowMaxInFlight, inFlightAtRelease);
+
+        long now = System.nanoTime();
+        if (windowCount < MIN_WINDOW_SAMPLES || now - windowStart < WINDOW_NANOS) {
+            return;
+        }
+
+        double shortRtt = (double) windowSum / windowCount;
+        int maxInFlight = windowMaxInFlight;
+        windowStart = now;
+        windowSum = 0;
+        windowCount = 0;
+        windowMaxInFlight = 0;
+
+        longRtt = longRtt == 0 ? shortRtt : longRtt + (shortRtt - longRtt) / LONG_WINDOW;
+        if (longRtt / shortRtt > 2) {
+            // Latency has dropped a lot: let the baseline follow it quickly
+            longRtt = longRtt * 0.95;
+        }
+
+        // Far below the limit, latency says nothing about capacity
+        if (maxInFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(0.5, Math.min(1.0, TOLERANCE * longRtt / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+        limit = (int) estimatedLimit;
+    }
+}
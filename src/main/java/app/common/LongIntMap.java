@@ -0,0 +1,217 @@
+package app.common;
+
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * Concurrent map from primitive long keys to primitive int values.
+ *
+ * Keys are spread over lock stripes; each stripe is an open-addressing table
+ * with linear probing. Reads are optimistic and lock-free in the common case,
+ * writes take the stripe's write lock. No boxing on either path.
+ */
+public class LongIntMap {
+
+    private static final int STRIPES = 32;
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Stripe[] stripes = new Stripe[STRIPES];
+
+    public LongIntMap() {
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    /**
+     * Returns the value for the key, or {@code missingValue} if there is none.
+     */
+    public int get(long key, int missingValue) {
+        long h = mix(key);
+        return stripes[(int) (h >>> 59)].get(key, h, missingValue);
+    }
+
+    public void put(long key, int value) {
+        long h = mix(key);
+        stripes[(int) (h >>> 59)].put(key, h, value);
+    }
+
+    /**
+     * Stores {@code value} only if it is greater than the current value (or the key is absent).
+     * Returns the value held after the call.
+     */
+    public int putIfGreater(long key, int value) {
+        long h = mix(key);
+        return stripes[(int) (h >>> 59)].putIfGreater(key, h, value);
+    }
+
+    public void remove(long key) {
+        long h = mix(key);
+        stripes[(int) (h >>> 59)].remove(key, h);
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.size();
+        }
+        return size;
+    }
+
+    // Murmur3 finalizer: spreads sequential ids over stripes and slots
+    private static long mix(long key) {
+        long h = key;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    // ---------------------------
+    // STRIPE
+    // ---------------------------
+
+    private static final class Table {
+        final long[] keys;
+        final int[] values;
+        final boolean[] used;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new long[capacity];
+            values = new int[capacity];
+            used = new boolean[capacity];
+            mask = capacity - 1;
+        }
+    }
+
+    private static final class Stripe {
+        private final StampedLock lock = new StampedLock();
+        private Table table = new Table(INITIAL_CAPACITY);
+        private int size;
+
+        int get(long key, long h, int missingValue) {
+            long stamp = lock.tryOptimisticRead();
+            int result = find(table, key, h, missingValue);
+            if (lock.validate(stamp)) {
+                return result;
+            }
+            stamp = lock.readLock();
+            try {
+                return find(table, key, h, missingValue);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        void put(long key, long h, int value) {
+            long stamp = lock.writeLock();
+            try {
+                insert(key, h, value, false);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int putIfGreater(long key, long h, int value) {
+            long stamp = lock.writeLock();
+            try {
+                return insert(key, h, value, true);
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        void remove(long key, long h) {
+            long stamp = lock.writeLock();
+            try {
+                Table t = table;
+                int i = indexOf(t, key, h);
+                if (i < 0) {
+                    return;
+                }
+                // Backward-shift deletion keeps probe chains intact without tombstones
+                int gap = i;
+                int j = (i + 1) & t.mask;
+                while (t.used[j]) {
+                    int home = (int) mix(t.keys[j]) & t.mask;
+                    if (((j - home) & t.mask) >= ((j - gap) & t.mask)) {
+                        t.keys[gap] = t.keys[j];
+                        t.values[gap] = t.values[j];
+                        gap = j;
+                    }
+                    j = (j + 1) & t.mask;
+                }
+                t.used[gap] = false;
+                size--;
+            } finally {
+                lock.unlockWrite(stamp);
+            }
+        }
+
+        int size() {
+            long stamp = lock.readLock();
+            try {
+                return size;
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+
+        private int insert(long key, long h, int value, boolean onlyIfGreater) {
+            Table t = table;
+            int i = (int) h & t.mask;
+            while (t.used[i]) {
+                if (t.keys[i] == key) {
+                    if (!onlyIfGreater || value > t.values[i]) {
+                        t.values[i] = value;
+                    }
+                    return t.values[i];
+                }
+                i = (i + 1) & t.mask;
+            }
+            t.used[i] = true;
+            t.keys[i] = key;
+            t.values[i] = value;
+            if (++size > (t.mask + 1) * 3 / 4) {
+                resize();
+            }
+            return value;
+        }
+
+        private void resize() {
+            Table old = table;
+            Table grown = new Table((old.mask + 1) * 2);
+            for (int i = 0; i <= old.mask; i++) {
+                if (old.used[i]) {
+                    int j = (int) mix(old.keys[i]) & grown.mask;
+                    while (grown.used[j]) {
+                        j = (j + 1) & grown.mask;
+                    }
+                    grown.used[j] = true;
+                    grown.keys[j] = old.keys[i];
+                    grown.values[j] = old.values[i];
+                }
+            }
+            table = grown;
+        }
+
+        private static int find(Table t, long key, long h, int missingValue) {
+            int i = indexOf(t, key, h);
+            return i >= 0 ? t.values[i] : missingValue;
+        }
+
+        // Bounded probe so an optimistic read racing a writer cannot spin forever
+        private static int indexOf(Table t, long key, long h) {
+            int i = (int) h & t.mask;
+            for (int probes = 0; probes <= t.mask && t.used[i]; probes++) {
+                if (t.keys[i] == key) {
+                    return i;
+                }
+                i = (i + 1) & t.mask;
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package app.config;
+
+import app.common.GradientConcurrencyLimit;
+import app.security.ConcurrencyLimitFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "app.concurrency.enabled", havingValue = "true", matchIfMissing = true)
+public class ConcurrencyLimitConfig {
+
+    // Ahead of Spring Security's chain (-100): shed requests before any auth work
+    private static final int FILTER_ORDER = -200;
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${app.concurrency.initial-limit:20}") int initialLimit,
+            @Value("${app.concurrency.min-limit:4}") int minLimit,
+            @Value("${app.concurrency.max-limit:200}") int maxLimit,
+            @Value("${app.concurrency.normal-share:0.9}") double normalShare,
+            @Value("${app.concurrency.bulk-share:0.5}") double bulkShare,
+            MeterRegistry meterRegistry) {
+        GradientConcurrencyLimit limit = new GradientConcurrencyLimit(initialLimit, minLimit, maxLimit);
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(
+                new ConcurrencyLimitFilter(limit, normalShare, bulkShare, meterRegistry));
+        registration.addUrlPatterns("/api/*");
+        registration.setOrder(FILTER_ORDER);
+        return registration;
+    }
+}
@@ -1,8 +1,13 @@
 package app.config;
 
+import app.security.BoundedPasswordEncoder;
 import app.security.JwtAuthenticationFilter;
 import app.security.OriginValidationFilter;
+import app.security.RateLimitFilter;
+import app.security.RequestClassifier;
 import app.service.CustomUserDetailsService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -26,36 +31,31 @@ public class SecurityConfig {
 
     private final JwtAuthenticationFilter jwtAuthenticationFilter;
     private final OriginValidationFilter originValidationFilter;
+    private final RateLimitFilter rateLimitFilter;
     private final CorsConfigurationSource corsConfigurationSource;
     private final CookieCsrfTokenRepository csrfTokenRepository;
     private final CsrfTokenRequestAttributeHandler csrfTokenRequestHandler;
     private final RequestMatcher csrfIgnoreMatcher;
+    private final RequestClassifier requestClassifier;
 
     public SecurityConfig(JwtAuthenticationFilter jwtAuthenticationFilter,
                           OriginValidationFilter originValidationFilter,
+                          RateLimitFilter rateLimitFilter,
                           CorsConfigurationSource corsConfigurationSource,
                           CookieCsrfTokenRepository csrfTokenRepository,
                           CsrfTokenRequestAttributeHandler csrfTokenRequestHandler,
-                          RequestMatcher csrfIgnoreMatcher) {
+                          RequestMatcher csrfIgnoreMatcher,
+                          RequestClassifier requestClassifier) {
         this.jwtAuthenticationFilter = jwtAuthenticationFilter;
         this.originValidationFilter = originValidationFilter;
+        this.rateLimitFilter = rateLimitFilter;
         this.corsConfigurationSource = corsConfigurationSource;
         this.csrfTokenRepository = csrfTokenRepository;
         this.csrfTokenRequestHandler = csrfTokenRequestHandler;
         this.csrfIgnoreMatcher = csrfIgnoreMatcher;
+        this.requestClassifier = requestClassifier;
     }
 
-    private static final String[] PUBLIC_ENDPOINTS = {
-        "/", "/index.html", "/static/**", "/assets/**",
-        "/*.js", "/*.css", "/*.json", "/*.png", "/*.jpg",
-        "/*.jpeg", "/*.gif", "/*.svg", "/*.ico",
-        "/favicon.ico", "/error",
-        "/api/auth/register",
-        "/api/auth/login",
-        "/api/csrf","/api/auth/refresh",
-        "/about", "/login", "/register", "/user"
-    };
-
     @Bean
     public SecurityFilterChain securityFilterChain(HttpSecurity http,
                                                    DaoAuthenticationProvider authProvider) throws Exception {
@@ -68,7 +68,7 @@ public class SecurityConfig {
             )
             .cors(cors -> cors.configurationSource(corsConfigurationSource))
             .authorizeHttpRequests(auth -> auth
-                .requestMatchers(PUBLIC_ENDPOINTS).permitAll()
+                .requestMatchers(requestClassifier::isPublic).permitAll()
                 .anyRequest().authenticated()
             )
             .sessionManagement(session ->
@@ -76,7 +76,9 @@ public class SecurityConfig {
             )
             .authenticationProvider(authProvider)
             .addFilterBefore(originValidationFilter, UsernamePasswordAuthenticationFilter.class)
-            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            // After JWT auth so authenticated callers are limited by user ID rather than address
+            .addFilterAfter(rateLimitFilter, JwtAuthenticationFilter.class);
 
         return http.build();
     }
@@ -86,9 +88,16 @@ public class SecurityConfig {
         return config.getAuthenticationManager();
     }
 
-    @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    @Bean(destroyMethod = "shutdown")
+    public PasswordEncoder passwordEncoder(@Value("${app.security.password.bcrypt-strength:10}") int strength,
+                                           @Value("${app.security.password.pool-size:0}") int poolSize,
+                                           @Value("${app.security.password.queue-capacity:64}") int queueCapacity,
+                                           @Value("${app.security.password.retry-after-seconds:1}") int retryAfterSeconds,
+                                           MeterRegistry meterRegistry) {
+        // BCrypt is CPU-bound: by default one worker per core
+        int workers = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(strength), strength,
+                workers, queueCapacity, retryAfterSeconds, meterRegistry);
     }
 
     @Bean
@@ -97,6 +106,8 @@ public class SecurityConfig {
         // Constructor requires a UserDetailsService
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
         provider.setPasswordEncoder(passwordEncoder);
+        // Re-hashes on login when the stored cost differs from the configured strength
+        provider.setUserDetailsPasswordService(userDetailsService);
         return provider;
     }
 }
@@ -0,0 +1,168 @@
+package app.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.servlet.resource.AbstractResourceResolver;
+import org.springframework.web.servlet.resource.HttpResource;
+import org.springframework.web.servlet.resource.ResourceResolverChain;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Answers the SPA's client-side routes with index.html from memory.
+ *
+ * Sits first in the chain of the root resource handler, which Spring only
+ * consults once no controller matched. Paths outside /api whose last segment
+ * has no dot get the page, read once at startup and kept as identity and gzip
+ * bytes, each with its own strong ETag (the handler turns a matching
+ * If-None-Match into 304). index.html itself is answered the same way, which
+ * covers "/": Spring Boot's welcome page forwards it there. Everything else
+ * goes on down the chain to the built files.
+ */
+public class SpaFallbackResolver extends AbstractResourceResolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpaFallbackResolver.class);
+
+    private final Page identity;
+    private final Page gzip;
+
+    public SpaFallbackResolver(Resource index) {
+        byte[] html = readIndex(index);
+        if (html == null) {
+            logger.warn("static/index.html not found; client-side routes will return 404 until the frontend is built");
+            this.identity = null;
+            this.gzip = null;
+            return;
+        }
+        String hash = hash(html);
+        this.identity = new Page(html, hash, null);
+        byte[] compressed = gzip(html);
+        this.gzip = compressed.length < html.length ? new Page(compressed, hash + "-gzip", "gzip") : null;
+    }
+
+    @Override
+    protected Resource resolveResourceInternal(HttpServletRequest request, String requestPath,
+                                               List<? extends Resource> locations, ResourceResolverChain chain) {
+        if (identity == null || !(isClientRoute(requestPath) || requestPath.equals("index.html"))) {
+            return chain.resolveResource(request, requestPath, locations);
+        }
+        if (gzip != null && request != null && acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+            return gzip;
+        }
+        return identity;
+    }
+
+    @Override
+    protected String resolveUrlPathInternal(String resourceUrlPath, List<? extends Resource> locations,
+                                            ResourceResolverChain chain) {
+        return chain.resolveUrlPath(resourceUrlPath, locations);
+    }
+
+    // Client routes: anything outside /api whose last segment has no dot
+    static boolean isClientRoute(String path) {
+        String relative = path.startsWith("/") ? path.substring(1) : path;
+        if (relative.equals("api") || relative.startsWith("api/")) {
+            return false;
+        }
+        return relative.indexOf('.', relative.lastIndexOf('/') + 1) < 0;
+    }
+
+    // gzip is refused by an explicit q of zero, in whatever form ("q=0", "q=0.0", "q=0.000")
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            if (!parts[0].trim().equalsIgnoreCase("gzip")) {
+                continue;
+            }
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        return Double.parseDouble(param.substring(2).trim()) > 0;
+                    } catch (NumberFormatException e) {
+                        return false;
+                    }
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private static byte[] readIndex(Resource resource) {
+        if (!resource.exists()) {
+            return null;
+        }
+        try (InputStream in = resource.getInputStream()) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not read static/index.html", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not compress index.html", e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String hash(byte[] data) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(data);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest).substring(0, 22);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * One encoding of the page. Named index.html so the handler sends text/html.
+     */
+    static final class Page extends ByteArrayResource implements HttpResource {
+        private final String etag;
+        private final String contentEncoding;
+
+        Page(byte[] body, String etag, String contentEncoding) {
+            super(body, "in-memory index.html");
+            this.etag = etag;
+            this.contentEncoding = contentEncoding;
+        }
+
+        String etag() {
+            return etag;
+        }
+
+        @Override
+        public String getFilename() {
+            return "index.html";
+        }
+
+        @Override
+        public HttpHeaders getResponseHeaders() {
+            HttpHeaders headers = new HttpHeaders();
+            headers.set(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (contentEncoding != null) {
+                headers.set(HttpHeaders.CONTENT_ENCODING, contentEncoding);
+            }
+            return headers;
+        }
+    }
+}
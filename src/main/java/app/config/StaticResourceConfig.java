@@ -0,0 +1,109 @@
+package app.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.http.CacheControl;
+import org.springframework.security.config.annotation.web.configuration.WebSecurityCustomizer;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.PathResourceResolver;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Serving of the built frontend.
+ *
+ * Vite's fingerprinted bundles under /assets change name whenever the content
+ * does, so responses are cacheable for a year as immutable, the strong ETag is
+ * the content hash from the name, and the .br/.gz siblings written by
+ * react/scripts/compress.mjs are picked by Accept-Encoding. These requests
+ * bypass the Spring Security filter chain.
+ *
+ * Everything else that no controller claims goes to the root handler, where
+ * client-side routes get index.html from {@link SpaFallbackResolver} and other
+ * paths the files next to it. Those responses are always revalidated, so a new
+ * deploy is picked up.
+ */
+@Configuration
+public class StaticResourceConfig implements WebMvcConfigurer {
+
+    private static final String ASSETS = "/assets/**";
+    private static final String STATIC = "classpath:/static/";
+    // Vite's content hash: '-', 8 base64url characters (which may include '-'), then the extension(s)
+    private static final Pattern VITE_HASH = Pattern.compile("-([A-Za-z0-9_-]{8})\\.[A-Za-z0-9.]+$");
+
+    private final SpaFallbackResolver spaFallback;
+
+    public StaticResourceConfig(ResourceLoader resourceLoader) {
+        this.spaFallback = new SpaFallbackResolver(resourceLoader.getResource(STATIC + "index.html"));
+    }
+
+    @Override
+    public void addResourceHandlers(ResourceHandlerRegistry registry) {
+        registry.addResourceHandler(ASSETS)
+                .addResourceLocations(STATIC + "assets/")
+                .setCacheControl(CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable())
+                .setUseLastModified(false)
+                .setEtagGenerator(StaticResourceConfig::etagOf)
+                .resourceChain(true)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new PathResourceResolver());
+
+        // Not cached by the chain: every distinct deep link would otherwise add an entry
+        registry.addResourceHandler("/**")
+                .addResourceLocations(STATIC)
+                .setCacheControl(CacheControl.noCache())
+                .setUseLastModified(false)
+                .setEtagGenerator(StaticResourceConfig::rootEtagOf)
+                .resourceChain(false)
+                .addResolver(spaFallback)
+                .addResolver(new EncodedResourceResolver())
+                .addResolver(new PathResourceResolver());
+    }
+
+    // Nothing under /assets is user-specific: no auth, CSRF, CORS or origin checks needed
+    @Bean
+    public WebSecurityCustomizer staticAssetsSecurityBypass() {
+        return web -> web.ignoring().requestMatchers(ASSETS);
+    }
+
+    static String rootEtagOf(Resource resource) {
+        return resource instanceof SpaFallbackResolver.Page page ? page.etag() : etagOf(resource);
+    }
+
+    /**
+     * "index-BdX3k2Qa.js" -> BdX3k2Qa, "vendor-Bd-3k_Qa.js" -> Bd-3k_Qa; encoded variants get a suffix so each
+     * representation has its own strong ETag.
+     */
+    static String etagOf(Resource resource) {
+        String name = resource.getFilename();
+        if (name == null) {
+            return null;
+        }
+        String suffix = "";
+        if (name.endsWith(".br")) {
+            suffix = "-br";
+            name = name.substring(0, name.length() - 3);
+        } else if (name.endsWith(".gz")) {
+            suffix = "-gzip";
+            name = name.substring(0, name.length() - 3);
+        }
+
+        Matcher hash = VITE_HASH.matcher(name);
+        if (hash.find()) {
+            return hash.group(1) + suffix;
+        }
+        // Not fingerprinted: fall back to size and modification time
+        try {
+            return Long.toHexString(resource.contentLength()) + "-" + Long.toHexString(resource.lastModified()) + suffix;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
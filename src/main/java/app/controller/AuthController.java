@@ -2,12 +2,17 @@ package app.controller;
 
 import app.dto.LoginRequest;
 import app.dto.RegisterRequest;
+import app.security.CustomUserDetails;
+import app.security.LoginThrottledException;
+import app.security.PasswordHashingSaturatedException;
 import app.service.AuthService;
 import app.service.UserProfileImageService;
 
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseCookie;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import app.dto.UserInfoProfileImage;
 
@@ -29,15 +34,19 @@ public class AuthController {
     // LOGIN
     // -------------------------
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody LoginRequest request) {
+    public ResponseEntity<?> login(@RequestBody LoginRequest request, HttpServletRequest httpRequest,
+                                   @RequestParam(value = "includeImageData", defaultValue = "false") boolean includeImageData) {
         try {
-            var result = authService.login(request);
+            var result = authService.login(request, httpRequest.getRemoteAddr());
 
             String accessToken = (String) result.get("access_token");
             String refreshToken = (String) result.get("refresh_token");
             app.dto.UserInfo userInfo = (app.dto.UserInfo) result.get("user");
-            String profileImage = userProfileImageService.getBase64Image(userInfo.getId());
-            UserInfoProfileImage userInfoProfileImage = new UserInfoProfileImage(userInfo, profileImage);
+            String profileImageUrl = userProfileImageService.getProfileImageUrl(userInfo.getId());
+            String profileImage = includeImageData ? userProfileImageService.getBase64Image(userInfo.getId()) : null;
+            String initialsAvatarUrl = userProfileImageService.getInitialsAvatarUrl(userInfo.getId(), userInfo.getName());
+            UserInfoProfileImage userInfoProfileImage =
+                    new UserInfoProfileImage(userInfo, profileImageUrl, profileImage, initialsAvatarUrl);
 
             // Correct cookie settings
             ResponseCookie refreshCookie = ResponseCookie.from("refresh_token", refreshToken)
@@ -55,6 +64,12 @@ public class AuthController {
                             "user", userInfoProfileImage
                     ));
 
+        } catch (LoginThrottledException e) {
+            return ResponseEntity.status(429)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(Map.of("error", "Too many failed attempts, try again later"));
+        } catch (PasswordHashingSaturatedException e) {
+            return hashingBusy(e);
         } catch (Exception e) {
             return ResponseEntity.status(401).body(Map.of("error", "Invalid credentials"));
         }
@@ -68,6 +83,8 @@ public class AuthController {
         try {
             authService.register(request);
             return ResponseEntity.ok(Map.of("message", "User registered successfully"));
+        } catch (PasswordHashingSaturatedException e) {
+            return hashingBusy(e);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
         }
@@ -112,7 +129,12 @@ public class AuthController {
     // LOGOUT
     // -------------------------
     @PostMapping("/logout")
-    public ResponseEntity<?> logout() {
+    public ResponseEntity<?> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authHeader) {
+        // Revoke the presented access token so it stops working before its expiry
+        if (authHeader != null && authHeader.startsWith("Bearer ")) {
+            authService.logout(authHeader.substring(7));
+        }
+
         ResponseCookie deleteCookie = ResponseCookie.from("refresh_token", "")
                 .httpOnly(true)
                 .secure(true)
@@ -125,4 +147,35 @@ public class AuthController {
                 .header(HttpHeaders.SET_COOKIE, deleteCookie.toString())
                 .body(Map.of("message", "Logged out successfully"));
     }
+
+    // -------------------------
+    // LOGOUT EVERYWHERE
+    // -------------------------
+    @PostMapping("/logout-all")
+    public ResponseEntity<?> logoutAll(@AuthenticationPrincipal CustomUserDetails principal) {
+        if (principal == null) {
+            return ResponseEntity.status(401).body(Map.of("error", "Not authenticated"));
+        }
+
+        authService.logoutAll(principal.getId());
+
+        ResponseCookie deleteCookie = ResponseCookie.from("refresh_token", "")
+                .httpOnly(true)
+                .secure(true)
+                .sameSite("None")
+                .path("/api/auth/refresh")
+                .maxAge(0)
+                .build();
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.SET_COOKIE, deleteCookie.toString())
+                .body(Map.of("message", "Logged out from all sessions"));
+    }
+
+    // 503 while the password-hashing pool is saturated; the client may retry shortly
+    private ResponseEntity<?> hashingBusy(PasswordHashingSaturatedException e) {
+        return ResponseEntity.status(503)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                .body(Map.of("error", "Server busy, please retry"));
+    }
 }
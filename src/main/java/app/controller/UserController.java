@@ -1,49 +1,82 @@
 package app.controller;
 
+import app.dto.ProfileImageJobStatus;
 import app.dto.UpdatePasswordRequest;
 import app.dto.UpdateUserRequest;
 import app.dto.UserInfo;
 import app.dto.UserInfoProfileImage;
 import app.model.User;
 import app.security.CustomUserDetails;
+import app.security.PasswordHashingSaturatedException;
+import app.service.ProfileImageProcessingBusyException;
+import app.service.ProfileImageProcessor;
+import app.service.ProfileImageRejectedException;
+import app.service.ProfileImageStore.StoredImage;
 import app.service.UserService;
-import io.jsonwebtoken.io.IOException;
 import app.service.UserProfileImageService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 
 @RestController
 @RequestMapping("/api/user")
 public class UserController {
 
+    private static final MediaType SVG = MediaType.valueOf("image/svg+xml");
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final UserService userService;
     private final UserProfileImageService userProfileImageService;
+    private final ProfileImageProcessor profileImageProcessor;
 
     public UserController(UserService userService,
-            UserProfileImageService userProfileImageService) {
+            UserProfileImageService userProfileImageService,
+            ProfileImageProcessor profileImageProcessor) {
         this.userService = userService;
         this.userProfileImageService = userProfileImageService;
+        this.profileImageProcessor = profileImageProcessor;
     }
 
     @PreAuthorize("isAuthenticated()")
     @GetMapping
-    public ResponseEntity<UserInfoProfileImage> currentUser(Authentication authentication) {
+    public ResponseEntity<UserInfoProfileImage> currentUser(
+            Authentication authentication,
+            @RequestParam(value = "includeImageData", defaultValue = "false") boolean includeImageData) {
         if (authentication == null || !authentication.isAuthenticated()) {
             return ResponseEntity.status(403).build();
         }
 
         Object principal = authentication.getPrincipal();
         if (principal instanceof CustomUserDetails user) {
-            // Fetch Base64 image from service
-            String base64Image = userProfileImageService.getBase64Image(user.getId());
+            // The image itself is served by GET /api/user/{id}/profile-image
+            String imageUrl = userProfileImageService.getProfileImageUrl(user.getId());
+            String base64Image = includeImageData ? userProfileImageService.getBase64Image(user.getId()) : null;
+            String initialsAvatarUrl = userProfileImageService.getInitialsAvatarUrl(user.getId(), user.getName());
 
             // Wrap into DTO
-            UserInfoProfileImage userInfo_ProfileImage = new UserInfoProfileImage(new UserInfo(user), base64Image);
+            UserInfoProfileImage userInfo_ProfileImage =
+                    new UserInfoProfileImage(new UserInfo(user), imageUrl, base64Image, initialsAvatarUrl);
 
             return ResponseEntity.ok(userInfo_ProfileImage);
         }
@@ -91,12 +124,16 @@ public class UserController {
             return ResponseEntity.ok("Password updated successfully");
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (PasswordHashingSaturatedException e) {
+            return ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body("Server busy, please retry");
         } catch (Exception e) {
             return ResponseEntity.internalServerError().body("An error occurred while updating password");
         }
     }
 
-    //Updates the User profileImage 
+    // Accepts a new profile image; it is processed in the background and reported by /profile-image/status
     @PreAuthorize("isAuthenticated()")
     @PostMapping("/profile-image")
     public ResponseEntity<?> uploadProfileImage(@RequestParam("file") MultipartFile file) {
@@ -106,15 +143,18 @@ public class UserController {
             }
 
             CustomUserDetails currentUser = userService.getCurrentUser();
+            ProfileImageJobStatus job = profileImageProcessor.submit(currentUser.getId(), file);
 
-            // Save the new image
-            String savedImageBase64 = userProfileImageService.saveCompressedImage(currentUser.getUser(), file);
-
-            // Build full DTO (same as GET /api/user)
-            UserInfoProfileImage dto = new UserInfoProfileImage(new UserInfo(currentUser.getUser()), savedImageBase64);
-
-            return ResponseEntity.ok(dto);
+            return ResponseEntity.accepted()
+                    .header(HttpHeaders.LOCATION, "/api/user/profile-image/status")
+                    .body(job);
 
+        } catch (ProfileImageRejectedException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (ProfileImageProcessingBusyException e) {
+            return ResponseEntity.status(503)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body("Server busy, please retry");
         } catch (IOException e) {
             return ResponseEntity.badRequest().body("Invalid image file");
         } catch (Exception e) {
@@ -122,6 +162,120 @@ public class UserController {
         }
     }
 
+    // Latest upload job of the current user; the previous image is served until it is DONE
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/profile-image/status")
+    public ResponseEntity<ProfileImageJobStatus> profileImageStatus() {
+        CustomUserDetails currentUser = userService.getCurrentUser();
+        ProfileImageJobStatus job = profileImageProcessor.getStatus(currentUser.getId());
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(job);
+    }
+
+    // Raw JPEG at the stored size nearest to ?size= (in pixels), or the initials SVG
+    // when the user has no image; the versioned URL (?v=) is immutable, the bare URL always revalidates
+    @PreAuthorize("isAuthenticated()")
+    @GetMapping("/{id}/profile-image")
+    public ResponseEntity<?> profileImage(
+            @PathVariable Long id,
+            @RequestParam(value = "v", required = false) String requestedVersion,
+            @RequestParam(value = "size", required = false) Integer requestedSize,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            HttpServletRequest request) throws IOException {
+        UserProfileImageService.ImageVersion stored = userProfileImageService.findImage(id, requestedSize).orElse(null);
+        if (stored == null) {
+            return initialsAvatar(id, requestedVersion, requestedSize, ifNoneMatch);
+        }
+
+        String version = UserProfileImageService.versionOf(stored.updatedOn());
+        // Content-derived, so identical images share one ETag across users and uploads
+        String etag = "\"" + stored.contentHash().substring(0, 32) + "\"";
+        CacheControl cacheControl = version.equals(requestedVersion)
+                ? CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable()
+                : CacheControl.noCache().cachePrivate();
+
+        // Answered from the image metadata alone, without reading the image
+        if (etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+
+        StoredImage image = userProfileImageService.openImage(stored.contentHash()).orElse(null);
+        if (image == null) {
+            return ResponseEntity.notFound().build();
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.IMAGE_JPEG)
+                .contentLength(image.length())
+                .eTag(etag)
+                .cacheControl(cacheControl);
+        if (!image.isFile()) {
+            return response.body(image.bytes());
+        }
+
+        Path file = image.file();
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat sends the file itself (sendfile) once the handler returns
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, image.length());
+            return response.build();
+        }
+        StreamingResponseBody body = out -> {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                WritableByteChannel target = Channels.newChannel(out);
+                long position = 0;
+                long size = channel.size();
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, target);
+                }
+            }
+        };
+        return response.body(body);
+    }
+
+    // Served instead of a 404 when the user has no image, from renderings shared by all users
+    private ResponseEntity<?> initialsAvatar(Long id, String requestedVersion, Integer requestedSize, String ifNoneMatch) {
+        UserProfileImageService.InitialsAvatar avatar =
+                userProfileImageService.findInitialsAvatar(id, requestedSize).orElse(null);
+        if (avatar == null) {
+            return ResponseEntity.notFound().build();
+        }
+        String etag = avatar.rendering().etag();
+        CacheControl cacheControl = avatar.version().equals(requestedVersion)
+                ? CacheControl.maxAge(Duration.ofDays(365)).cachePrivate().immutable()
+                : CacheControl.noCache().cachePrivate();
+        if (etagMatches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).cacheControl(cacheControl).build();
+        }
+        byte[] svg = avatar.rendering().svg();
+        return ResponseEntity.ok()
+                .contentType(SVG)
+                .contentLength(svg.length)
+                .eTag(etag)
+                .cacheControl(cacheControl)
+                .body(svg);
+    }
+
+    private static boolean etagMatches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.startsWith("W/")) {
+                value = value.substring(2);
+            }
+            if (value.equals("*") || value.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @PreAuthorize("isAuthenticated()")
     @DeleteMapping("/profile-image")
     public ResponseEntity<?> deleteProfileImage() {
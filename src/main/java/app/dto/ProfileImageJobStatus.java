@@ -0,0 +1,60 @@
+package app.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+
+/**
+ * State of a user's latest profile image upload, as returned by the upload and
+ * status endpoints. Instances are immutable; every transition creates a new one.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ProfileImageJobStatus {
+
+    public enum State { QUEUED, PROCESSING, DONE, FAILED }
+
+    private final String jobId;
+    private final State state;
+    private final Instant submittedAt;
+    private final Instant finishedAt;
+    // Versioned URL of the new image once the job is DONE
+    private final String profileImageUrl;
+    private final String error;
+
+    private ProfileImageJobStatus(String jobId, State state, Instant submittedAt, Instant finishedAt,
+                                  String profileImageUrl, String error) {
+        this.jobId = jobId;
+        this.state = state;
+        this.submittedAt = submittedAt;
+        this.finishedAt = finishedAt;
+        this.profileImageUrl = profileImageUrl;
+        this.error = error;
+    }
+
+    public static ProfileImageJobStatus queued(String jobId) {
+        return new ProfileImageJobStatus(jobId, State.QUEUED, Instant.now(), null, null, null);
+    }
+
+    public ProfileImageJobStatus processing() {
+        return new ProfileImageJobStatus(jobId, State.PROCESSING, submittedAt, null, null, null);
+    }
+
+    public ProfileImageJobStatus done(String profileImageUrl) {
+        return new ProfileImageJobStatus(jobId, State.DONE, submittedAt, Instant.now(), profileImageUrl, null);
+    }
+
+    public ProfileImageJobStatus failed(String error) {
+        return new ProfileImageJobStatus(jobId, State.FAILED, submittedAt, Instant.now(), null, error);
+    }
+
+    public boolean isFinished() {
+        return state == State.DONE || state == State.FAILED;
+    }
+
+    public String getJobId() { return jobId; }
+    public State getState() { return state; }
+    public Instant getSubmittedAt() { return submittedAt; }
+    public Instant getFinishedAt() { return finishedAt; }
+    public String getProfileImageUrl() { return profileImageUrl; }
+    public String getError() { return error; }
+}
@@ -1,5 +1,7 @@
 package app.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+
 import java.util.List;
 
 public class UserInfoProfileImage {
@@ -9,16 +11,33 @@ public class UserInfoProfileImage {
     private List<String> roles;
     private String createdAt;
     private String updatedAt;
+    // Versioned URL of GET /api/user/{id}/profile-image, null when the user has no image
+    private String profileImageUrl;
+    // Base64 image, only for clients that still ask for it (includeImageData=true)
+    @JsonInclude(JsonInclude.Include.NON_NULL)
     private String profileImage;
+    // Versioned URL of the generated initials avatar, for when profileImageUrl is null
+    private String initialsAvatarUrl;
+
+    public UserInfoProfileImage(UserInfo userInfo, String profileImageUrl) {
+        this(userInfo, profileImageUrl, null);
+    }
+
+    public UserInfoProfileImage(UserInfo userInfo, String profileImageUrl, String profileImage) {
+        this(userInfo, profileImageUrl, profileImage, null);
+    }
 
-    public UserInfoProfileImage(UserInfo userInfo, String profileImage) {
+    public UserInfoProfileImage(UserInfo userInfo, String profileImageUrl, String profileImage,
+                                String initialsAvatarUrl) {
         this.id = userInfo.getId();
         this.name = userInfo.getName();
         this.email = userInfo.getEmail();
         this.roles = userInfo.getRoles();
         this.createdAt = userInfo.getCreatedAt();
         this.updatedAt = userInfo.getUpdatedAt();
+        this.profileImageUrl = profileImageUrl;
         this.profileImage = profileImage;
+        this.initialsAvatarUrl = initialsAvatarUrl;
     }
 
     public Long getId() { return id; }
@@ -27,5 +46,7 @@ public class UserInfoProfileImage {
     public List<String> getRoles() { return roles; }
     public String getCreatedAt() { return createdAt; }
     public String getUpdatedAt() { return updatedAt; }
+    public String getProfileImageUrl() { return profileImageUrl; }
     public String getProfileImage() { return profileImage; }
+    public String getInitialsAvatarUrl() { return initialsAvatarUrl; }
 }
@@ -0,0 +1,76 @@
+package app.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * One encoded profile image, stored once however many users and sizes point
+ * at it. {@code refCount} is the number of user_profile_image_sizes rows with
+ * this hash; blobs left at zero are removed by the background sweep.
+ */
+@Entity
+@Table(name = "profile_image_blobs",
+       indexes = @Index(name = "idx_profile_image_blobs_orphaned", columnList = "ref_count, orphaned_at"))
+public class ProfileImageBlob {
+
+    // SHA-256 (hex) of the bytes, also the key in a content-addressed store
+    @Id
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
+    @Column(name = "byte_size", nullable = false)
+    private int byteSize;
+
+    // BLOB; null when the bytes live in an external store
+    @Lob
+    @Column(name = "image_data", columnDefinition = "LONGBLOB")
+    private byte[] imageData;
+
+    @Column(name = "ref_count", nullable = false)
+    private int refCount;
+
+    // When refCount last dropped to zero; null while referenced
+    @Column(name = "orphaned_at")
+    private LocalDateTime orphanedAt;
+
+    // Getters and Setters
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public int getByteSize() {
+        return byteSize;
+    }
+
+    public void setByteSize(int byteSize) {
+        this.byteSize = byteSize;
+    }
+
+    public byte[] getImageData() {
+        return imageData;
+    }
+
+    public void setImageData(byte[] imageData) {
+        this.imageData = imageData;
+    }
+
+    public int getRefCount() {
+        return refCount;
+    }
+
+    public void setRefCount(int refCount) {
+        this.refCount = refCount;
+    }
+
+    public LocalDateTime getOrphanedAt() {
+        return orphanedAt;
+    }
+
+    public void setOrphanedAt(LocalDateTime orphanedAt) {
+        this.orphanedAt = orphanedAt;
+    }
+}
@@ -2,10 +2,20 @@ package app.model;
 
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.HexFormat;
 
 @Entity
-@Table(name = "token_blacklist")
+@Table(name = "token_blacklist", indexes = {
+    @Index(name = "idx_token_blacklist_expiry_bucket", columnList = "expiry_bucket"),
+    // Range deletes, min(expires_at) and the startup load all filter or sort on it
+    @Index(name = "idx_token_blacklist_expires_at", columnList = "expires_at")
+})
 public class TokenBlacklist {
+
+    // Rows are grouped by the hour in which they expire; whole past buckets can be dropped
+    public static final long BUCKET_SECONDS = 3600;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -13,17 +23,21 @@ public class TokenBlacklist {
     @Column(name = "user_id", nullable = false)
     private Long userId;
 
-    @Column(nullable = false, unique = true)
-    private String jti;
+    // 128-bit jti stored as raw bytes instead of its 36-char text form
+    @Column(nullable = false, unique = true, columnDefinition = "BINARY(16)")
+    private byte[] jti;
 
     @Column(name = "expires_at", nullable = false)
     private LocalDateTime expiresAt;
 
+    @Column(name = "expiry_bucket", nullable = false)
+    private int expiryBucket;
+
 
     public TokenBlacklist() {
     }
     
-    public TokenBlacklist(Long userId, String jti, LocalDateTime expiresAt) {
+    public TokenBlacklist(Long userId, byte[] jti, LocalDateTime expiresAt) {
         this.userId = userId;
         this.jti = jti;
         this.expiresAt = expiresAt;
@@ -37,11 +51,11 @@ public class TokenBlacklist {
         this.userId = userId;
     }
 
-    public String getJti() {
+    public byte[] getJti() {
         return jti;
     }
 
-    public void setJti(String jti) {
+    public void setJti(byte[] jti) {
         this.jti = jti;
     }
 
@@ -53,9 +67,24 @@ public class TokenBlacklist {
         this.expiresAt = expiresAt;
     }
 
+    public int getExpiryBucket() {
+        return expiryBucket;
+    }
+
+    public static int bucketOf(LocalDateTime expiresAt) {
+        return (int) (expiresAt.toEpochSecond(ZoneOffset.UTC) / BUCKET_SECONDS);
+    }
+
+    @PrePersist
+    @PreUpdate
+    void assignBucket() {
+        this.expiryBucket = bucketOf(expiresAt);
+    }
+
     @Override
     public String toString() {
-        return "{\"id\"=" + id + ", \"userId\"=" + userId + ", \"jti\"=" + jti + ", \"expiresAt\"=" + expiresAt + "}";
+        String jtiHex = jti != null ? HexFormat.of().formatHex(jti) : null;
+        return "{\"id\"=" + id + ", \"userId\"=" + userId + ", \"jti\"=" + jtiHex + ", \"expiresAt\"=" + expiresAt + "}";
     }
     
     // Getters and setters for id
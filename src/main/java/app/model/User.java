@@ -26,6 +26,12 @@ public class User {
     @UpdateTimestamp
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
+    // Bumped on profile/password changes; access tokens carry it as the "ver" claim
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+    // Bumped by "log out everywhere"; every token carries it as the "epc" claim
+    @Column(name = "token_epoch", nullable = false)
+    private int tokenEpoch;
 
     // Getters and Setters
     public Long getId() {
@@ -83,4 +89,20 @@ public class User {
     public void setUpdatedAt(LocalDateTime updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public void setTokenVersion(int tokenVersion) {
+        this.tokenVersion = tokenVersion;
+    }
+
+    public int getTokenEpoch() {
+        return tokenEpoch;
+    }
+
+    public void setTokenEpoch(int tokenEpoch) {
+        this.tokenEpoch = tokenEpoch;
+    }
 }
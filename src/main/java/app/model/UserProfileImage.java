@@ -2,8 +2,12 @@ package app.model;
 
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
-import org.hibernate.annotations.UpdateTimestamp;
 
+/**
+ * Metadata of a user's profile image. The encoded bytes of every size live in
+ * {@link ProfileImageBlob} or an external store, so loading or checking
+ * this row never touches image payload.
+ */
 @Entity
 @Table(name = "user_profile_images")
 public class UserProfileImage {
@@ -12,18 +16,21 @@ public class UserProfileImage {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
-    // Store image as BLOB
-    @Lob
-    @Column(nullable = false, columnDefinition = "LONGBLOB")
-    private byte[] imageData;
-
     // Link to User
     @OneToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "user_id", nullable = false, unique = true)
     private User user;
 
-    @UpdateTimestamp
-    @Column(name = "updated_on")
+    // SHA-256 (hex) of the default-size image
+    @Column(name = "content_hash", length = 64, nullable = false)
+    private String contentHash;
+
+    // Length in bytes of the default-size image
+    @Column(name = "byte_size", nullable = false)
+    private int byteSize;
+
+    // Set by the upsert in UserProfileImageRepository; the image's version and ETag derive from it
+    @Column(name = "updated_on", nullable = false)
     private LocalDateTime updatedOn;
 
     // Getters and Setters
@@ -35,14 +42,6 @@ public class UserProfileImage {
         this.id = id;
     }
 
-    public byte[] getImageData() {
-        return imageData;
-    }
-
-    public void setImageData(byte[] imageData) {
-        this.imageData = imageData;
-    }
-
     public User getUser() {
         return user;
     }
@@ -51,6 +50,22 @@ public class UserProfileImage {
         this.user = user;
     }
 
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public int getByteSize() {
+        return byteSize;
+    }
+
+    public void setByteSize(int byteSize) {
+        this.byteSize = byteSize;
+    }
+
     public LocalDateTime getUpdatedOn() {
         return updatedOn;
     }
@@ -0,0 +1,76 @@
+package app.model;
+
+import jakarta.persistence.*;
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * Points one size of a user's profile image at its bytes in
+ * {@link ProfileImageBlob}. Users with identical images point at the same blob.
+ */
+@Entity
+@Table(name = "user_profile_image_sizes",
+       indexes = @Index(name = "idx_profile_image_sizes_hash", columnList = "content_hash"))
+public class UserProfileImageSize {
+
+    @EmbeddedId
+    private Key id;
+
+    // SHA-256 (hex) of the encoded image; the key of profile_image_blobs
+    @Column(name = "content_hash", length = 64, nullable = false)
+    private String contentHash;
+
+    // Getters and Setters
+    public Key getId() {
+        return id;
+    }
+
+    public void setId(Key id) {
+        this.id = id;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    @Embeddable
+    public static class Key implements Serializable {
+
+        @Column(name = "user_id", nullable = false)
+        private Long userId;
+
+        // Bounding box in pixels (the longer side of the image)
+        @Column(name = "size", nullable = false)
+        private int size;
+
+        protected Key() {
+        }
+
+        public Key(Long userId, int size) {
+            this.userId = userId;
+            this.size = size;
+        }
+
+        public Long getUserId() {
+            return userId;
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key other && Objects.equals(userId, other.userId) && size == other.size;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(userId, size);
+        }
+    }
+}
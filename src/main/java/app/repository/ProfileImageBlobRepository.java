@@ -0,0 +1,47 @@
+package app.repository;
+
+import app.model.ProfileImageBlob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface ProfileImageBlobRepository extends JpaRepository<ProfileImageBlob, String>, ProfileImageBlobRepositoryCustom {
+
+    @Query("select b.imageData from ProfileImageBlob b where b.contentHash = :hash")
+    Optional<byte[]> findImageData(@Param("hash") String contentHash);
+
+    // Adds delta to each blob's reference count; records when a count reaches zero
+    @Modifying
+    @Query(value = """
+            update profile_image_blobs
+            set orphaned_at = case when ref_count + :delta <= 0 then :now else null end,
+                ref_count = ref_count + :delta
+            where content_hash in (:hashes)
+            """, nativeQuery = true)
+    int adjustRefCount(@Param("hashes") Collection<String> contentHashes,
+                       @Param("delta") int delta,
+                       @Param("now") LocalDateTime now);
+
+    @Query("select b.contentHash from ProfileImageBlob b where b.refCount <= 0 and b.orphanedAt < :cutoff order by b.orphanedAt")
+    List<String> findOrphans(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+    // Re-checked under the row lock, so a blob referenced again since findOrphans is kept
+    @Modifying
+    @Query("delete from ProfileImageBlob b where b.contentHash = :hash and b.refCount <= 0 and b.orphanedAt < :cutoff")
+    int deleteIfOrphaned(@Param("hash") String contentHash, @Param("cutoff") LocalDateTime cutoff);
+
+    // Blobs whose bytes are still stored in the database
+    @Query("select b.contentHash from ProfileImageBlob b where b.imageData is not null order by b.contentHash")
+    List<String> findHashesWithData(Pageable pageable);
+
+    @Modifying
+    @Query("update ProfileImageBlob b set b.imageData = null where b.contentHash = :hash")
+    int clearImageData(@Param("hash") String contentHash);
+}
@@ -0,0 +1,16 @@
+package app.repository;
+
+import java.util.List;
+
+public interface ProfileImageBlobRepositoryCustom {
+
+    /**
+     * Inserts the blobs that do not exist yet, with a reference count of zero,
+     * and locks the ones that do. Existing bytes are never rewritten; a blob
+     * without bytes gets them when {@code imageData} is given.
+     */
+    int insertMissing(List<NewBlob> blobs);
+
+    record NewBlob(String contentHash, int byteSize, byte[] imageData) {
+    }
+}
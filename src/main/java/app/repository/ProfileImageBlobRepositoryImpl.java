@@ -0,0 +1,35 @@
+package app.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.List;
+
+class ProfileImageBlobRepositoryImpl implements ProfileImageBlobRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int insertMissing(List<NewBlob> blobs) {
+        if (blobs.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder(
+                "insert into profile_image_blobs (content_hash, byte_size, image_data, ref_count) values ");
+        for (int i = 0; i < blobs.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?, 0)");
+        }
+        sql.append(" on duplicate key update image_data = coalesce(image_data, values(image_data))");
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        int position = 1;
+        for (NewBlob blob : blobs) {
+            query.setParameter(position++, blob.contentHash());
+            query.setParameter(position++, blob.byteSize());
+            query.setParameter(position++, blob.imageData());
+        }
+        return query.executeUpdate();
+    }
+}
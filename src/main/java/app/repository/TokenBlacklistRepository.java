@@ -2,7 +2,11 @@ package app.repository;
 
 import app.model.TokenBlacklist;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
@@ -10,9 +14,40 @@ import java.util.Optional;
 @Repository
 public interface TokenBlacklistRepository extends JpaRepository<TokenBlacklist, Long> {
     List<TokenBlacklist> findAll();
+    List<TokenBlacklist> findByExpiresAtAfter(LocalDateTime now);
     Optional<TokenBlacklist> findByUserId(Long userId);
-    Optional<TokenBlacklist> findByJti(String jti);
-    boolean existsByJti(String jti);
+    Optional<TokenBlacklist> findByJti(byte[] jti);
+    boolean existsByJti(byte[] jti);
     int deleteByUserId(Long userId);
     int deleteByExpiresAtBefore(LocalDateTime now);
+
+    // Adds the jti in one statement; an existing row (another instance or a concurrent revoke) is left as it is
+    @Modifying
+    @Transactional
+    @Query(value = """
+            insert into token_blacklist (user_id, jti, expires_at, expiry_bucket)
+            values (:userId, :jti, :expiresAt, :expiryBucket)
+            on duplicate key update jti = jti
+            """, nativeQuery = true)
+    int insertIfAbsent(@Param("userId") Long userId,
+                       @Param("jti") byte[] jti,
+                       @Param("expiresAt") LocalDateTime expiresAt,
+                       @Param("expiryBucket") int expiryBucket);
+
+    // Bounded deletes: each call is its own short transaction (MariaDB supports DELETE ... LIMIT)
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM token_blacklist WHERE expires_at < :now LIMIT :limit", nativeQuery = true)
+    int deleteExpiredBatch(@Param("now") LocalDateTime now, @Param("limit") int limit);
+
+    @Modifying
+    @Transactional
+    @Query(value = "DELETE FROM token_blacklist WHERE expiry_bucket = :bucket LIMIT :limit", nativeQuery = true)
+    int deleteBucketBatch(@Param("bucket") int bucket, @Param("limit") int limit);
+
+    @Query("select min(t.expiryBucket) from TokenBlacklist t")
+    Optional<Integer> findOldestBucket();
+
+    @Query("select min(t.expiresAt) from TokenBlacklist t")
+    Optional<LocalDateTime> findOldestExpiry();
 }
@@ -2,9 +2,40 @@ package app.repository;
 
 import app.model.UserProfileImage;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.LocalDateTime;
 import java.util.Optional;
 
 public interface UserProfileImageRepository extends JpaRepository<UserProfileImage, Long> {
-    Optional<UserProfileImage> findByUserId(Long userId);
+
+    // Version and hash, for existence and ETag checks
+    Optional<ImageRef> findRefByUserId(Long userId);
+
+    // Insert or replace the user's metadata row in one statement, without reading it first
+    @Modifying
+    @Query(value = """
+            insert into user_profile_images (user_id, content_hash, byte_size, updated_on)
+            values (:userId, :contentHash, :byteSize, :updatedOn)
+            on duplicate key update
+                content_hash = values(content_hash),
+                byte_size = values(byte_size),
+                updated_on = values(updated_on)
+            """, nativeQuery = true)
+    int upsert(@Param("userId") Long userId,
+               @Param("contentHash") String contentHash,
+               @Param("byteSize") int byteSize,
+               @Param("updatedOn") LocalDateTime updatedOn);
+
+    @Modifying
+    @Query("delete from UserProfileImage i where i.user.id = :userId")
+    int deleteByUserIdInBulk(@Param("userId") Long userId);
+
+    interface ImageRef {
+        LocalDateTime getUpdatedOn();
+
+        String getContentHash();
+    }
 }
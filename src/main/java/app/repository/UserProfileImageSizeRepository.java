@@ -0,0 +1,28 @@
+package app.repository;
+
+import app.model.UserProfileImageSize;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface UserProfileImageSizeRepository
+        extends JpaRepository<UserProfileImageSize, UserProfileImageSize.Key>, UserProfileImageSizeRepositoryCustom {
+
+    @Query("select s.contentHash from UserProfileImageSize s where s.id.userId = :userId and s.id.size = :size")
+    Optional<String> findContentHash(@Param("userId") Long userId, @Param("size") int size);
+
+    // The user's current pointers, locked so reference counts are adjusted from an exact "before"
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from UserProfileImageSize s where s.id.userId = :userId")
+    List<UserProfileImageSize> findByUserIdForUpdate(@Param("userId") Long userId);
+
+    @Modifying
+    @Query("delete from UserProfileImageSize s where s.id.userId = :userId")
+    int deleteByUserIdInBulk(@Param("userId") Long userId);
+}
@@ -0,0 +1,14 @@
+package app.repository;
+
+import java.util.List;
+
+public interface UserProfileImageSizeRepositoryCustom {
+
+    /**
+     * Points the given sizes of a user's image at their blobs with one multi-row statement.
+     */
+    int upsertAll(Long userId, List<Row> rows);
+
+    record Row(int size, String contentHash) {
+    }
+}
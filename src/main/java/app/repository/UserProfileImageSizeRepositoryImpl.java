@@ -0,0 +1,34 @@
+package app.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.List;
+
+class UserProfileImageSizeRepositoryImpl implements UserProfileImageSizeRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int upsertAll(Long userId, List<Row> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        StringBuilder sql = new StringBuilder("insert into user_profile_image_sizes (user_id, size, content_hash) values ");
+        for (int i = 0; i < rows.size(); i++) {
+            sql.append(i == 0 ? "" : ", ").append("(?, ?, ?)");
+        }
+        sql.append(" on duplicate key update content_hash = values(content_hash)");
+
+        Query query = entityManager.createNativeQuery(sql.toString());
+        int position = 1;
+        for (Row row : rows) {
+            query.setParameter(position++, userId);
+            query.setParameter(position++, row.size());
+            query.setParameter(position++, row.contentHash());
+        }
+        return query.executeUpdate();
+    }
+}
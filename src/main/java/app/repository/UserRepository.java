@@ -2,6 +2,9 @@ package app.repository;
 
 import app.model.User;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -10,4 +13,17 @@ import java.util.Optional;
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByEmail(String email);
     boolean existsByEmail(String email);
+
+    @Query("select u.name from User u where u.id = :id")
+    Optional<String> findNameById(@Param("id") Long id);
+
+    @Query("select u.tokenVersion from User u where u.id = :id")
+    Optional<Integer> findTokenVersionById(@Param("id") Long id);
+
+    @Query("select u.tokenEpoch from User u where u.id = :id")
+    Optional<Integer> findTokenEpochById(@Param("id") Long id);
+
+    @Modifying
+    @Query("update User u set u.tokenEpoch = u.tokenEpoch + 1 where u.id = :id")
+    int incrementTokenEpoch(@Param("id") Long id);
 }
@@ -0,0 +1,125 @@
+package app.security;
+
+import io.jsonwebtoken.Claims;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Immutable outcome of a single access-token verification.
+ * Either VALID with the claims the application relies on, or a typed failure.
+ */
+public final class AccessTokenVerification {
+
+    public enum Status {
+        VALID,
+        EXPIRED,
+        BAD_SIGNATURE,
+        MALFORMED,
+        UNSUPPORTED
+    }
+
+    private final Status status;
+    private final String subject;
+    private final Instant expiresAt;
+    private final String jti;
+    private final List<String> roles;
+    private final String email;
+    private final String name;
+    private final int version;
+    private final int epoch;
+
+    private AccessTokenVerification(Status status, String subject, Instant expiresAt, String jti, List<String> roles,
+                                    String email, String name, int version, int epoch) {
+        this.status = status;
+        this.subject = subject;
+        this.expiresAt = expiresAt;
+        this.jti = jti;
+        this.roles = roles;
+        this.email = email;
+        this.name = name;
+        this.version = version;
+        this.epoch = epoch;
+    }
+
+    static AccessTokenVerification valid(Claims claims) {
+        return new AccessTokenVerification(
+                Status.VALID,
+                claims.getSubject(),
+                claims.getExpiration() != null ? claims.getExpiration().toInstant() : null,
+                claims.getId(),
+                rolesOf(claims.get("role")),
+                claims.get("email", String.class),
+                claims.get("name", String.class),
+                intClaim(claims.get("ver")),
+                intClaim(claims.get("epc")));
+    }
+
+    static AccessTokenVerification failed(Status status) {
+        return new AccessTokenVerification(status, null, null, null, List.of(), null, null, 0, 0);
+    }
+
+    // Tokens issued before a counter claim existed are treated as version 0
+    private static int intClaim(Object claim) {
+        return claim instanceof Number number ? number.intValue() : 0;
+    }
+
+    // "role" is a plain name ("USER") or a list of authorities (["ROLE_USER"]) depending on the issuer
+    private static List<String> rolesOf(Object claim) {
+        if (claim instanceof Collection<?> values) {
+            return values.stream()
+                    .map(String::valueOf)
+                    .map(role -> role.startsWith("ROLE_") ? role.substring(5) : role)
+                    .toList();
+        }
+        if (claim != null) {
+            String role = claim.toString();
+            return List.of(role.startsWith("ROLE_") ? role.substring(5) : role);
+        }
+        return List.of();
+    }
+
+    public boolean isValid() {
+        return status == Status.VALID;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public String getJti() {
+        return jti;
+    }
+
+    // Pure role names, without the ROLE_ prefix
+    public List<String> getRoles() {
+        return roles;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Value of the "ver" claim
+    public int getVersion() {
+        return version;
+    }
+
+    // Value of the "epc" claim
+    public int getEpoch() {
+        return epoch;
+    }
+}
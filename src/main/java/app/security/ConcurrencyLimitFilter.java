@@ -0,0 +1,103 @@
+package app.security;
+
+import app.common.GradientConcurrencyLimit;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Sheds /api/** load with 503 once in-flight requests exceed an adaptive limit.
+ *
+ * Each priority class may use only a share of the current limit, so as the
+ * limit shrinks uploads are refused first and token refresh / the current-user
+ * lookup keep working longest. Registered ahead of the security chain by
+ * {@code ConcurrencyLimitConfig}, so shed requests cost no JWT or DB work.
+ * Shed requests are counted in http.concurrency.rejected and logged at debug
+ * only, so an overload does not also flood the log.
+ */
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+
+    enum Priority {
+        CRITICAL, NORMAL, BULK
+    }
+
+    private final GradientConcurrencyLimit limit;
+    private final Map<Priority, Double> shares = new EnumMap<>(Priority.class);
+    private final Map<Priority, Counter> rejected = new EnumMap<>(Priority.class);
+
+    public ConcurrencyLimitFilter(GradientConcurrencyLimit limit, double normalShare, double bulkShare,
+                                  MeterRegistry meterRegistry) {
+        this.limit = limit;
+        shares.put(Priority.CRITICAL, 1.0);
+        shares.put(Priority.NORMAL, normalShare);
+        shares.put(Priority.BULK, bulkShare);
+        for (Priority priority : Priority.values()) {
+            rejected.put(priority, Counter.builder("http.concurrency.rejected")
+                    .description("Requests shed by the adaptive concurrency limit")
+                    .tag("priority", priority.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("http.concurrency.limit", limit, GradientConcurrencyLimit::getLimit)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("http.concurrency.in-flight", limit, GradientConcurrencyLimit::getInFlight)
+                .description("Requests currently admitted")
+                .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        Priority priority = priorityOf(request);
+        int ceiling = Math.max(1, (int) Math.ceil(limit.getLimit() * shares.get(priority)));
+        if (!limit.tryAcquire(ceiling)) {
+            rejected.get(priority).increment();
+            logger.debug("Shedding {} request to {} (limit {})", priority, request.getRequestURI(), limit.getLimit());
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setContentType("application/json");
+            response.getWriter().write("{\"error\":\"server_busy\"}");
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            limit.release(System.nanoTime() - start);
+        }
+    }
+
+    static Priority priorityOf(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        String method = request.getMethod();
+        if (path.equals("/api/auth/refresh") || (path.equals("/api/user") && "GET".equals(method))) {
+            return Priority.CRITICAL;
+        }
+        if (path.startsWith("/api/user/profile-image") && !"GET".equals(method)) {
+            return Priority.BULK;
+        }
+        return Priority.NORMAL;
+    }
+}
@@ -1,11 +1,13 @@
 package app.security;
 
 import app.model.User;
+import app.model.UserRole;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import java.time.Instant;
+import java.time.LocalDateTime;
 import java.time.ZoneOffset;
 import java.util.Collection;
 import java.util.List;
@@ -13,41 +15,108 @@ import java.util.List;
 /**
  * Custom implementation of Spring Security's UserDetails
  * that includes the user's ID, email, name, and timestamps.
+ *
+ * Immutable snapshot of the user: it never holds the JPA entity, so it is safe
+ * to cache and share between requests. The password hash is only present on
+ * instances built for login ({@link #withPassword(User)}).
  */
-public class CustomUserDetails implements UserDetails {
-
-    private final User user; // keep the full User entity
-    private final Collection<? extends GrantedAuthority> authorities;
+public final class CustomUserDetails implements UserDetails {
+
+    private final long id;
+    private final String name;
+    private final String email;
+    private final UserRole role;
+    private final Instant createdAt;
+    private final Instant updatedAt;
+    private final int tokenVersion;
+    private final int tokenEpoch;
+    private final String password;
+    private final List<GrantedAuthority> authorities;
+
+    private CustomUserDetails(long id, String name, String email, UserRole role,
+                              Instant createdAt, Instant updatedAt, int tokenVersion, int tokenEpoch,
+                              String password) {
+        this.id = id;
+        this.name = name;
+        this.email = email;
+        this.role = role;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.tokenVersion = tokenVersion;
+        this.tokenEpoch = tokenEpoch;
+        this.password = password;
+        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + role.name()));
+    }
 
+    /**
+     * Slim principal for authenticated requests; carries no password hash.
+     */
     public CustomUserDetails(User user) {
-        this.user = user;
-        this.authorities = List.of(new SimpleGrantedAuthority("ROLE_" + user.getRole().name()));
+        this(user.getId(), user.getName(), user.getEmail(), user.getRole(),
+                toInstant(user.getCreatedAt()), toInstant(user.getUpdatedAt()), user.getTokenVersion(), user.getTokenEpoch(), null);
+    }
+
+    /**
+     * Principal used by DaoAuthenticationProvider during login, which needs the stored hash.
+     */
+    public static CustomUserDetails withPassword(User user) {
+        return new CustomUserDetails(user.getId(), user.getName(), user.getEmail(), user.getRole(),
+                toInstant(user.getCreatedAt()), toInstant(user.getUpdatedAt()), user.getTokenVersion(), user.getTokenEpoch(),
+                user.getPassword());
+    }
+
+    /**
+     * Builds a principal from verified access-token claims alone (no DB lookup).
+     * Timestamps are not part of the token and are left null.
+     */
+    public static CustomUserDetails fromClaims(AccessTokenVerification verification) {
+        return new CustomUserDetails(
+                Long.parseLong(verification.getSubject()),
+                verification.getName(),
+                verification.getEmail(),
+                UserRole.valueOf(verification.getRoles().get(0)),
+                null,
+                null,
+                verification.getVersion(),
+                verification.getEpoch(),
+                null);
     }
 
-    // Expose the full User entity
-    public User getUser() {
-        return user;
+    private static Instant toInstant(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.toInstant(ZoneOffset.UTC) : null;
     }
 
     // Convenience getters
     public Long getId() {
-        return user.getId();
+        return id;
     }
 
     public String getEmail() {
-        return user.getEmail();
+        return email;
     }
 
     public String getName() {
-        return user.getName();
+        return name;
+    }
+
+    public UserRole getRole() {
+        return role;
+    }
+
+    public int getTokenVersion() {
+        return tokenVersion;
+    }
+
+    public int getTokenEpoch() {
+        return tokenEpoch;
     }
 
     public Instant getCreatedAt() {
-        return user.getCreatedAt() != null ? user.getCreatedAt().toInstant(ZoneOffset.UTC) : null;
+        return createdAt;
     }
 
     public Instant getUpdatedAt() {
-        return user.getUpdatedAt() != null ? user.getUpdatedAt().toInstant(ZoneOffset.UTC) : null;
+        return updatedAt;
     }
 
     @Override
@@ -57,20 +126,17 @@ public class CustomUserDetails implements UserDetails {
 
     //Returns the pure ROLE
     public List<String> getRoles() {
-        return authorities.stream()
-                .map(GrantedAuthority::getAuthority)
-                .map(role -> role.startsWith("ROLE_") ? role.substring(5) : role)
-                .toList();
+        return List.of(role.name());
     }
 
     @Override
     public String getPassword() {
-        return user.getPassword();
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return user.getEmail();
+        return email;
     }
 
     @Override
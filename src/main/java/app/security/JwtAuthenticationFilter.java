@@ -6,6 +6,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -23,10 +24,27 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final CustomUserDetailsService userDetailsService;
-
-    public JwtAuthenticationFilter(JwtService jwtService, CustomUserDetailsService userDetailsService) {
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final TokenRevocationIndex tokenRevocationIndex;
+    private final TokenEpochRegistry tokenEpochRegistry;
+    private final RequestClassifier requestClassifier;
+
+    // When true, the principal is built from verified claims instead of loading the user
+    @Value("${app.jwt.stateless-principal:false}")
+    private boolean statelessPrincipal;
+
+    public JwtAuthenticationFilter(JwtService jwtService,
+                                   CustomUserDetailsService userDetailsService,
+                                   TokenVersionRegistry tokenVersionRegistry,
+                                   TokenRevocationIndex tokenRevocationIndex,
+                                   TokenEpochRegistry tokenEpochRegistry,
+                                   RequestClassifier requestClassifier) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.tokenRevocationIndex = tokenRevocationIndex;
+        this.tokenEpochRegistry = tokenEpochRegistry;
+        this.requestClassifier = requestClassifier;
     }
 
     @Override
@@ -35,8 +53,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             HttpServletResponse response,
             FilterChain filterChain) throws ServletException, IOException {
 
-        // Skip JWT validation for refresh token endpoint
-        if ("/api/auth/refresh-token".equals(request.getRequestURI())) {
+        // Public endpoints never need a principal: skip token parsing and the user lookup
+        if (requestClassifier.isPublic(request)) {
             filterChain.doFilter(request, response);
             return;
         }
@@ -49,37 +67,78 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
         final String jwt = authHeader.substring(7);
 
-        try {
-            final String subject = jwtService.extractSubject(jwt);
-
-            if (subject != null && SecurityContextHolder.getContext().getAuthentication() == null) {
-                Long userId = Long.parseLong(subject);
-                UserDetails userDetails = userDetailsService.loadUserById(userId);
-
-                if (jwtService.validateToken(jwt, userId)) {
-                    UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
-                            null,
-                            userDetails.getAuthorities());
-                    authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-                    SecurityContextHolder.getContext().setAuthentication(authToken);
-                } else {
-                    logger.warn("JWT validation failed for user ID {}", userId);
-                }
-            }
+        // One signature check + parse for the whole request
+        AccessTokenVerification verification = jwtService.verifyAccessToken(jwt);
+
+        if (verification.getStatus() == AccessTokenVerification.Status.EXPIRED) {
+            logger.warn("Access token expired");
+            rejectToken(response, "access_token_expired", true);
+            return;
+        }
 
+        if (!verification.isValid()) {
+            logger.warn("JWT validation failed: {}", verification.getStatus());
             filterChain.doFilter(request, response);
+            return;
+        }
 
-        } catch (io.jsonwebtoken.ExpiredJwtException ex) {
-            logger.warn("Access token expired");
+        if (tokenRevocationIndex.isRevoked(verification.getJti())) {
+            // Logged out: refreshing would not help, so no X-Token-Expired
+            logger.warn("Revoked access token used");
+            rejectToken(response, "access_token_revoked", false);
+            return;
+        }
 
-            response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
-            response.setHeader("X-Token-Expired", "true");
-            response.setContentType("application/json");
-            response.getWriter().write("{\"error\":\"access_token_expired\"}");
-        } catch (Exception e) {
-            logger.error("JWT authentication failed", e);
+        final long userId;
+        try {
+            userId = Long.parseLong(verification.getSubject());
+        } catch (NumberFormatException e) {
+            logger.warn("JWT subject is not a user ID");
             filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!tokenEpochRegistry.isCurrent(userId, verification.getEpoch())) {
+            // Issued before "log out everywhere"; the refresh token is dead too
+            logger.warn("Access token from a revoked epoch for user ID {}", userId);
+            rejectToken(response, "access_token_revoked", false);
+            return;
+        }
+
+        if (statelessPrincipal && !tokenVersionRegistry.isCurrent(userId, verification.getVersion())) {
+            // Same contract as expiry: the client refreshes and gets a token with current claims
+            logger.warn("Stale access token for user ID {}", userId);
+            rejectToken(response, "access_token_stale", true);
+            return;
+        }
+
+        if (SecurityContextHolder.getContext().getAuthentication() == null) {
+            try {
+                UserDetails userDetails = statelessPrincipal
+                        ? CustomUserDetails.fromClaims(verification)
+                        : userDetailsService.loadUserById(userId);
+
+                UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
+                        userDetails,
+                        null,
+                        userDetails.getAuthorities());
+                authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+                SecurityContextHolder.getContext().setAuthentication(authToken);
+            } catch (Exception e) {
+                logger.error("JWT authentication failed", e);
+            }
+        }
+
+        filterChain.doFilter(request, response);
+    }
+
+    // 401; X-Token-Expired tells the SPA to refresh and retry once
+    private void rejectToken(HttpServletResponse response, String error, boolean refreshable) throws IOException {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        if (refreshable) {
+            response.setHeader("X-Token-Expired", "true");
         }
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"" + error + "\"}");
     }
 }
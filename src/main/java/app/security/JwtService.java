@@ -2,18 +2,22 @@ package app.security;
 
 import app.model.User;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.MalformedJwtException;
+import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.SecurityException;
+import jakarta.annotation.PostConstruct;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
 import java.util.function.Function;
 
 @Service
@@ -31,74 +35,111 @@ public class JwtService {
     @Value("${app.refresh.expiration}")
     private long refreshExpirationMs;
 
+    @Value("${app.jwt.verified-cache.max-entries:10000}")
+    private int verifiedCacheMaxEntries;
+
+    // Built once at startup; keys and parsers are immutable and thread-safe
+    private Key accessKey;
+    private Key refreshKey;
+    private JwtParser accessParser;
+    private JwtParser refreshParser;
+    private TokenMinter accessMinter;
+    private TokenMinter refreshMinter;
+    private VerifiedTokenCache<AccessTokenVerification> verifiedTokens;
+
+    @PostConstruct
+    void init() {
+        accessKey = Keys.hmacShaKeyFor(accessSecret.getBytes(StandardCharsets.UTF_8));
+        refreshKey = Keys.hmacShaKeyFor(refreshSecret.getBytes(StandardCharsets.UTF_8));
+        accessParser = Jwts.parserBuilder().setSigningKey(accessKey).build();
+        refreshParser = Jwts.parserBuilder().setSigningKey(refreshKey).build();
+        accessMinter = new TokenMinter(accessKey, accessExpirationMs);
+        refreshMinter = new TokenMinter(refreshKey, refreshExpirationMs);
+        verifiedTokens = verifiedCacheMaxEntries > 0 ? new VerifiedTokenCache<>(verifiedCacheMaxEntries) : null;
+    }
+
     // ---------------------------
     // ACCESS TOKEN GENERATION
     // ---------------------------
 
     public String generateToken(User user) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("role", user.getRole().name());
-        claims.put("email", user.getEmail());
-        claims.put("name", user.getName());
-
-        return createAccessToken(claims, String.valueOf(user.getId()));
+        return accessMinter.begin()
+                .claim("role", user.getRole().name())
+                .claim("email", user.getEmail())
+                .claim("name", user.getName())
+                .claim("ver", user.getTokenVersion())
+                .claim("epc", user.getTokenEpoch())
+                .sign(String.valueOf(user.getId()));
     }
 
     public String generateToken(CustomUserDetails userDetails) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("role", userDetails.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .toList());
-        claims.put("email", userDetails.getEmail());
-        claims.put("name", userDetails.getName());
-
-        return createAccessToken(claims, String.valueOf(userDetails.getId()));
-    }
-
-    private String createAccessToken(Map<String, Object> claims, String subject) {
-        String jti = UUID.randomUUID().toString();
-
-        return Jwts.builder()
-                .setClaims(claims)
-                .setId(jti)
-                .setSubject(subject)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + accessExpirationMs))
-                .signWith(getAccessKey(), SignatureAlgorithm.HS256)
-                .compact();
+        return accessMinter.begin()
+                .claim("role", userDetails.getAuthorities().stream()
+                        .map(GrantedAuthority::getAuthority)
+                        .toList())
+                .claim("email", userDetails.getEmail())
+                .claim("name", userDetails.getName())
+                .claim("ver", userDetails.getTokenVersion())
+                .claim("epc", userDetails.getTokenEpoch())
+                .sign(String.valueOf(userDetails.getId()));
     }
 
     // ---------------------------
     // REFRESH TOKEN GENERATION
     // ---------------------------
 
-    public String generateRefreshToken(Long userId) {
-        Map<String, Object> claims = new HashMap<>();
-        claims.put("type", "refresh");
-
-        return createRefreshToken(claims, String.valueOf(userId));
-    }
-
-    private String createRefreshToken(Map<String, Object> claims, String subject) {
-        String jti = UUID.randomUUID().toString();
-
-        return Jwts.builder()
-                .setClaims(claims)
-                .setId(jti)
-                .setSubject(subject)
-                .setIssuedAt(new Date())
-                .setExpiration(new Date(System.currentTimeMillis() + refreshExpirationMs))
-                .signWith(getRefreshKey(), SignatureAlgorithm.HS256)
-                .compact();
+    public String generateRefreshToken(Long userId, int tokenEpoch) {
+        return refreshMinter.begin()
+                .claim("type", "refresh")
+                .claim("epc", tokenEpoch)
+                .sign(String.valueOf(userId));
     }
 
     // ---------------------------
     // VALIDATION + CLAIM EXTRACTION
     // ---------------------------
 
+    /**
+     * Verifies an access token with a single signature check and JSON parse.
+     * Never throws for bad tokens: failures are reported through the result status.
+     */
+    public AccessTokenVerification verifyAccessToken(String token) {
+        if (verifiedTokens != null) {
+            AccessTokenVerification cached = verifiedTokens.get(token);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        Claims claims;
+        try {
+            claims = accessParser.parseClaimsJws(token).getBody();
+        } catch (ExpiredJwtException e) {
+            return AccessTokenVerification.failed(AccessTokenVerification.Status.EXPIRED);
+        } catch (SecurityException e) {
+            return AccessTokenVerification.failed(AccessTokenVerification.Status.BAD_SIGNATURE);
+        } catch (UnsupportedJwtException e) {
+            return AccessTokenVerification.failed(AccessTokenVerification.Status.UNSUPPORTED);
+        } catch (MalformedJwtException | IllegalArgumentException e) {
+            return AccessTokenVerification.failed(AccessTokenVerification.Status.MALFORMED);
+        } catch (JwtException e) {
+            return AccessTokenVerification.failed(AccessTokenVerification.Status.MALFORMED);
+        }
+
+        if (claims.getSubject() == null) {
+            return AccessTokenVerification.failed(AccessTokenVerification.Status.MALFORMED);
+        }
+
+        AccessTokenVerification verification = AccessTokenVerification.valid(claims);
+        if (verifiedTokens != null && verification.getExpiresAt() != null) {
+            verifiedTokens.put(token, verification, verification.getExpiresAt().toEpochMilli());
+        }
+        return verification;
+    }
+
     public Boolean validateToken(String token, Long userId) {
-        final String tokenSub = extractSubject(token);
-        return tokenSub.equals(String.valueOf(userId)) && !isTokenExpired(token);
+        AccessTokenVerification verification = verifyAccessToken(token);
+        return verification.isValid() && verification.getSubject().equals(String.valueOf(userId));
     }
 
     public String extractSubject(String token) {
@@ -115,27 +156,7 @@ public class JwtService {
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getAccessKey()) // Access tokens only
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-    }
-
-    private Boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
-    }
-
-    // ---------------------------
-    // KEYS
-    // ---------------------------
-
-    private Key getAccessKey() {
-        return Keys.hmacShaKeyFor(accessSecret.getBytes());
-    }
-
-    private Key getRefreshKey() {
-        return Keys.hmacShaKeyFor(refreshSecret.getBytes());
+        return accessParser.parseClaimsJws(token).getBody(); // Access tokens only
     }
 
     // ---------------------------
@@ -143,11 +164,7 @@ public class JwtService {
     // ---------------------------
 
     public Claims extractRefreshClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getRefreshKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        return refreshParser.parseClaimsJws(token).getBody();
     }
 
     public boolean validateRefreshToken(String token) {
@@ -173,6 +190,12 @@ public class JwtService {
         return Long.valueOf(claims.getSubject());
     }
 
+    // Refresh tokens issued before epochs existed carry no claim and count as epoch 0
+    public int getEpochFromRefreshToken(String token) {
+        Object epoch = extractRefreshClaims(token).get("epc");
+        return epoch instanceof Number number ? number.intValue() : 0;
+    }
+
     public boolean isRefreshTokenExpired(String token) {
         Claims claims = extractRefreshClaims(token);
         return claims.getExpiration().before(new Date());
@@ -0,0 +1,164 @@
+package app.security;
+
+import app.common.StripedLruMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Counts failed logins per (email, client address) pair and per client address
+ * and locks them out with exponential backoff.
+ *
+ * Failures against an email are never counted on their own: an account locked
+ * by one client would otherwise lock its owner out everywhere. Guessing one
+ * account from many addresses is bounded by the per-address count instead.
+ *
+ * {@link #checkAllowed(String, String)} is consulted before the user lookup and
+ * BCrypt compare, so throttled attempts cost two map reads. Both maps are
+ * bounded LRU structures; state for keys that go quiet is simply evicted.
+ */
+@Component
+public class LoginAttemptTracker {
+
+    // "email address" keys; a space never occurs in a normalized email
+    private final StripedLruMap<String, Attempts> byEmail;
+    private final StripedLruMap<String, Attempts> byAddress;
+
+    private final int freeAttemptsPerEmail;
+    private final int freeAttemptsPerAddress;
+    private final long baseLockoutMs;
+    private final long maxLockoutMs;
+    private final long resetAfterMs;
+
+    private final Counter rejected;
+
+    public LoginAttemptTracker(@Value("${app.security.login.max-entries:50000}") int maxEntries,
+                               @Value("${app.security.login.free-attempts-per-email:5}") int freeAttemptsPerEmail,
+                               @Value("${app.security.login.free-attempts-per-address:20}") int freeAttemptsPerAddress,
+                               @Value("${app.security.login.base-lockout-ms:1000}") long baseLockoutMs,
+                               @Value("${app.security.login.max-lockout-ms:900000}") long maxLockoutMs,
+                               @Value("${app.security.login.reset-after-ms:900000}") long resetAfterMs,
+                               MeterRegistry meterRegistry) {
+        this.byEmail = new StripedLruMap<>(maxEntries);
+        this.byAddress = new StripedLruMap<>(maxEntries);
+        this.freeAttemptsPerEmail = freeAttemptsPerEmail;
+        this.freeAttemptsPerAddress = freeAttemptsPerAddress;
+        this.baseLockoutMs = baseLockoutMs;
+        this.maxLockoutMs = maxLockoutMs;
+        this.resetAfterMs = resetAfterMs;
+        this.rejected = Counter.builder("login.attempts.rejected")
+                .description("Logins refused by the failed-attempt tracker")
+                .register(meterRegistry);
+        Gauge.builder("login.attempts.tracked", this, tracker -> tracker.byEmail.size() + tracker.byAddress.size())
+                .description("Email/address pairs and client addresses with recent failed logins")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Throws {@link LoginThrottledException} while the email from this address, or the address itself, is locked out.
+     */
+    public void checkAllowed(String email, String address) {
+        checkAllowed(email, address, System.currentTimeMillis());
+    }
+
+    void checkAllowed(String email, String address, long now) {
+        String emailKey = emailKey(email, address);
+        long lockedUntil = Math.max(lockedUntil(byEmail, emailKey), lockedUntil(byAddress, address));
+        if (lockedUntil <= now) {
+            lockedUntil = Math.max(claim(byEmail, emailKey, freeAttemptsPerEmail, now),
+                    claim(byAddress, address, freeAttemptsPerAddress, now));
+        }
+        if (lockedUntil > now) {
+            rejected.increment();
+            throw new LoginThrottledException(Math.max(1, (lockedUntil - now + 999) / 1000));
+        }
+    }
+
+    public void recordFailure(String email, String address) {
+        recordFailure(email, address, System.currentTimeMillis());
+    }
+
+    void recordFailure(String email, String address, long now) {
+        fail(byEmail, emailKey(email, address), freeAttemptsPerEmail, now);
+        fail(byAddress, address, freeAttemptsPerAddress, now);
+    }
+
+    /**
+     * Clears the account's failures from that address. The address keeps its count,
+     * so logging in to an attacker-owned account does not reset a stuffing run.
+     */
+    public void recordSuccess(String email, String address) {
+        String key = emailKey(email, address);
+        if (key != null) {
+            byEmail.remove(key);
+        }
+    }
+
+    private static long lockedUntil(StripedLruMap<String, Attempts> attempts, String key) {
+        if (key == null) {
+            return 0;
+        }
+        Attempts entry = attempts.get(key);
+        return entry != null ? entry.lockedUntil : 0;
+    }
+
+    /**
+     * Once a key has used its free attempts, lets one attempt through per expired lockout:
+     * the first check re-locks the key for a base lockout until its failure is recorded,
+     * so concurrent attempts cannot all pass in the gap and queue up BCrypt work.
+     * Returns the time the key is held until when another attempt already has it, else 0.
+     */
+    private long claim(StripedLruMap<String, Attempts> attempts, String key, int freeAttempts, long now) {
+        if (key == null || attempts.get(key) == null) {
+            return 0;
+        }
+        long[] heldUntil = {0};
+        attempts.compute(key, (k, entry) -> {
+            if (entry == null || entry.failures < freeAttempts || now - entry.lastFailure > resetAfterMs) {
+                return entry;
+            }
+            if (entry.lockedUntil > now) {
+                heldUntil[0] = entry.lockedUntil;
+            } else {
+                entry.lockedUntil = now + baseLockoutMs;
+            }
+            return entry;
+        });
+        return heldUntil[0];
+    }
+
+    private void fail(StripedLruMap<String, Attempts> attempts, String key, int freeAttempts, long now) {
+        if (key == null) {
+            return;
+        }
+        attempts.compute(key, (k, entry) -> {
+            if (entry == null || now - entry.lastFailure > resetAfterMs) {
+                entry = new Attempts();
+            }
+            entry.failures++;
+            entry.lastFailure = now;
+            int excess = entry.failures - freeAttempts;
+            if (excess > 0) {
+                // 1x, 2x, 4x ... the base lockout, capped
+                long lockout = excess > 30 ? maxLockoutMs : Math.min(maxLockoutMs, baseLockoutMs << (excess - 1));
+                entry.lockedUntil = now + lockout;
+            }
+            return entry;
+        });
+    }
+
+    private static String emailKey(String email, String address) {
+        return email != null ? email.trim().toLowerCase(Locale.ROOT) + " " + address : null;
+    }
+
+    // Mutated only inside StripedLruMap.compute, i.e. under the stripe lock
+    private static final class Attempts {
+        int failures;
+        long lastFailure;
+        volatile long lockedUntil; // read outside the lock by checkAllowed
+    }
+}
@@ -20,45 +20,27 @@ public class OriginValidationFilter extends OncePerRequestFilter {
     @Value("${app.security.allowed-origin}")
     private String allowedOrigin;
 
-    // Paths that ALWAYS require origin validation (must match allowed origin)
-    private static final String[] STRICT_PROTECTED_PATHS = {
-        "/api/auth/login",
-        "/api/auth/register",
-        "/api/csrf"
-    };
+    private final RequestClassifier requestClassifier;
 
-    // Paths that only validate origin if it's present
-    private static final String[] PROTECTED_PATHS = {
-        "/api/user",
-        "/api/auth/logout",
-        "/api/demo"
-    };
+    public OriginValidationFilter(RequestClassifier requestClassifier) {
+        this.requestClassifier = requestClassifier;
+    }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
                                     HttpServletResponse response, 
                                     FilterChain filterChain) throws ServletException, IOException {
         
+        RequestClassifier.RequestClass requestClass = requestClassifier.classify(request);
+        if (!requestClass.isStrictOrigin() && !requestClass.isLenientOrigin()) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
         String origin = request.getHeader("Origin");
         String requestPath = request.getRequestURI();
-        
-        // Check if this is a STRICT protected path (MUST have origin that matches)
-        boolean isStrictProtectedPath = false;
-        for (String path : STRICT_PROTECTED_PATHS) {
-            if (requestPath.startsWith(path)) {
-                isStrictProtectedPath = true;
-                break;
-            }
-        }
-        
-        // Check if this is a regular protected path (validate origin if present)
-        boolean isProtectedPath = false;
-        for (String path : PROTECTED_PATHS) {
-            if (requestPath.startsWith(path)) {
-                isProtectedPath = true;
-                break;
-            }
-        }
+        boolean isStrictProtectedPath = requestClass.isStrictOrigin();
+        boolean isProtectedPath = requestClass.isLenientOrigin();
         
         // STRICT: /api/auth/login, /api/auth/register and /api/csrf
         // Allow if:
@@ -66,12 +48,6 @@ public class OriginValidationFilter extends OncePerRequestFilter {
         // 2. Request has NO Origin header AND Referer indicates same-origin (same-origin requests from pages served by this server)
         if (isStrictProtectedPath) {
             String referer = request.getHeader("Referer");
-            String scheme = request.getScheme();
-            String serverOrigin = scheme + "://" + request.getServerName();
-            int port = request.getServerPort();
-            if (!(("http".equalsIgnoreCase(scheme) && port == 80) || ("https".equalsIgnoreCase(scheme) && port == 443))) {
-                serverOrigin += ":" + port;
-            }
 
             if (origin != null) {
                 // Cross-origin request: Origin header must match allowedOrigin
@@ -84,12 +60,12 @@ public class OriginValidationFilter extends OncePerRequestFilter {
             } else {
                 // Same-origin request (no Origin header): verify Referer matches server origin OR allowedOrigin
                 boolean refererMatches = (referer != null) &&
-                    (referer.startsWith(serverOrigin) || referer.startsWith(allowedOrigin));
+                    (isServerOrigin(referer, request) || hasOrigin(referer, allowedOrigin));
 
                 if (!refererMatches) {
                     logger.warn("Rejected request to " + requestPath +
                         " - no Origin header and Referer mismatch. referer=" + referer +
-                        ", serverOrigin=" + serverOrigin + ", allowedOrigin=" + allowedOrigin);
+                        ", server=" + request.getServerName() + ":" + request.getServerPort() + ", allowedOrigin=" + allowedOrigin);
                     response.setStatus(HttpServletResponse.SC_FORBIDDEN);
                     response.getWriter().write("Origin header is required or Referer must be from same origin");
                     return;
@@ -109,4 +85,50 @@ public class OriginValidationFilter extends OncePerRequestFilter {
         
         filterChain.doFilter(request, response);
     }
+
+    // Referer starts with scheme://host[:port] of this server; compared in place, without building the origin string
+    private static boolean isServerOrigin(String referer, HttpServletRequest request) {
+        String scheme = request.getScheme();
+        String host = request.getServerName();
+        int port = request.getServerPort();
+
+        int i = scheme.length();
+        if (!referer.regionMatches(true, 0, scheme, 0, i) || !referer.startsWith("://", i)) {
+            return false;
+        }
+        i += 3;
+        if (!referer.regionMatches(true, i, host, 0, host.length())) {
+            return false;
+        }
+        i += host.length();
+
+        boolean defaultPort = ("http".equalsIgnoreCase(scheme) && port == 80) || ("https".equalsIgnoreCase(scheme) && port == 443);
+        if (!defaultPort) {
+            if (i >= referer.length() || referer.charAt(i) != ':') {
+                return false;
+            }
+            int value = 0;
+            int digits = 0;
+            for (i++; i < referer.length() && digits < 6 && Character.isDigit(referer.charAt(i)); i++, digits++) {
+                value = value * 10 + (referer.charAt(i) - '0');
+            }
+            if (digits == 0 || value != port) {
+                return false;
+            }
+        }
+        return isOriginEnd(referer, i);
+    }
+
+    private static boolean hasOrigin(String referer, String origin) {
+        return referer.startsWith(origin) && isOriginEnd(referer, origin.length());
+    }
+
+    // The origin part of a URL ends at the end of the string or at a path, query or fragment
+    private static boolean isOriginEnd(String url, int index) {
+        if (index == url.length()) {
+            return true;
+        }
+        char next = url.charAt(index);
+        return next == '/' || next == '?' || next == '#';
+    }
 }
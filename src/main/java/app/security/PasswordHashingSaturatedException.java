@@ -0,0 +1,19 @@
+package app.security;
+
+/**
+ * Thrown when the password-hashing pool has no queue space left.
+ * Controllers answer it with 503 and a Retry-After header.
+ */
+public class PasswordHashingSaturatedException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public PasswordHashingSaturatedException(int retryAfterSeconds) {
+        super("Password hashing capacity exhausted, retry later");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
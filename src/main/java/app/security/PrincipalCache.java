@@ -0,0 +1,48 @@
+package app.security;
+
+import app.common.CacheMetrics;
+import app.common.ConcurrentLongCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.function.LongFunction;
+
+/**
+ * Bounded, TTL-limited cache of slim principals keyed by user ID.
+ * Lets JwtAuthenticationFilter skip the per-request user lookup for active users.
+ */
+@Component
+public class PrincipalCache {
+
+    private final ConcurrentLongCache<CustomUserDetails> cache;
+
+    public PrincipalCache(@Value("${app.security.principal-cache.max-entries:10000}") int maxEntries,
+                          @Value("${app.security.principal-cache.ttl-ms:300000}") long ttlMs,
+                          MeterRegistry meterRegistry) {
+        this.cache = new ConcurrentLongCache<>(maxEntries, ttlMs);
+        CacheMetrics.register(meterRegistry, "principals", cache);
+    }
+
+    public CustomUserDetails get(long userId, LongFunction<CustomUserDetails> loader) {
+        return cache.getOrLoad(userId, loader);
+    }
+
+    /**
+     * Drops the user's principal now and again after the surrounding transaction commits,
+     * so a request racing the update cannot re-cache the old state.
+     */
+    public void invalidate(long userId) {
+        cache.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(userId);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package app.security;
+
+import app.common.StripedLruMap;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token-bucket rate limiting for /api/**.
+ *
+ * Requests are keyed by the authenticated user ID, or by client address for
+ * anonymous calls, and limited per endpoint class (auth, read, write, upload).
+ * Each class keeps its buckets in a bounded {@link StripedLruMap}. Every
+ * response carries RateLimit-Limit / -Remaining / -Reset; a refused request
+ * gets 429 with Retry-After and is counted in http.ratelimit.rejected.
+ */
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(RateLimitFilter.class);
+
+    enum EndpointClass {
+        AUTH, READ, WRITE, UPLOAD
+    }
+
+    private final boolean enabled;
+    private final Map<EndpointClass, Limit> limits = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, StripedLruMap<Object, Bucket>> buckets = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejected = new EnumMap<>(EndpointClass.class);
+
+    public RateLimitFilter(@Value("${app.ratelimit.enabled:true}") boolean enabled,
+                           @Value("${app.ratelimit.max-entries:100000}") int maxEntries,
+                           @Value("${app.ratelimit.auth.capacity:60}") int authCapacity,
+                           @Value("${app.ratelimit.auth.per-minute:60}") int authPerMinute,
+                           @Value("${app.ratelimit.read.capacity:60}") int readCapacity,
+                           @Value("${app.ratelimit.read.per-minute:60}") int readPerMinute,
+                           @Value("${app.ratelimit.write.capacity:60}") int writeCapacity,
+                           @Value("${app.ratelimit.write.per-minute:60}") int writePerMinute,
+                           @Value("${app.ratelimit.upload.capacity:60}") int uploadCapacity,
+                           @Value("${app.ratelimit.upload.per-minute:60}") int uploadPerMinute,
+                           MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        limits.put(EndpointClass.AUTH, new Limit(authCapacity, authPerMinute));
+        limits.put(EndpointClass.READ, new Limit(readCapacity, readPerMinute));
+        limits.put(EndpointClass.WRITE, new Limit(writeCapacity, writePerMinute));
+        limits.put(EndpointClass.UPLOAD, new Limit(uploadCapacity, uploadPerMinute));
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            buckets.put(endpointClass, new StripedLruMap<>(maxEntries));
+            rejected.put(endpointClass, Counter.builder("http.ratelimit.rejected")
+                    .description("Requests refused by the per-client rate limit")
+                    .tag("class", endpointClass.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || !request.getRequestURI().startsWith("/api/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        EndpointClass endpointClass = classify(request);
+        Limit limit = limits.get(endpointClass);
+        Object client = clientKey(request);
+
+        Bucket bucket = buckets.get(endpointClass).compute(client, (key, existing) ->
+                existing != null ? existing : new Bucket(limit));
+        long now = System.nanoTime();
+        long result = bucket.tryAcquire(now);
+
+        response.setHeader("RateLimit-Limit", String.valueOf(limit.capacity));
+        if (result >= 0) {
+            response.setHeader("RateLimit-Remaining", String.valueOf(result));
+            response.setHeader("RateLimit-Reset", String.valueOf(bucket.secondsUntilFull(now)));
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(-result + 999_999_999L));
+        rejected.get(endpointClass).increment();
+        logger.debug("Rate limit exceeded for {} on {} requests", client, endpointClass);
+        response.setStatus(429);
+        response.setHeader("RateLimit-Remaining", "0");
+        response.setHeader("RateLimit-Reset", String.valueOf(retryAfter));
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        response.setContentType("application/json");
+        response.getWriter().write("{\"error\":\"rate_limited\"}");
+    }
+
+    static EndpointClass classify(HttpServletRequest request) {
+        String path = request.getRequestURI();
+        if (path.startsWith("/api/auth/")) {
+            return EndpointClass.AUTH;
+        }
+        String method = request.getMethod();
+        if ("GET".equals(method) || "HEAD".equals(method)) {
+            return EndpointClass.READ;
+        }
+        if (path.startsWith("/api/user/profile-image")) {
+            return EndpointClass.UPLOAD;
+        }
+        return EndpointClass.WRITE;
+    }
+
+    // User ID once JwtAuthenticationFilter has run, otherwise the client address
+    private static Object clientKey(HttpServletRequest request) {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication != null && authentication.getPrincipal() instanceof CustomUserDetails principal) {
+            return principal.getId();
+        }
+        return request.getRemoteAddr();
+    }
+
+    // ---------------------------
+    // TOKEN BUCKET
+    // ---------------------------
+
+    private record Limit(int capacity, int perMinute) {
+        long nanosPerToken() {
+            return TimeUnit.MINUTES.toNanos(1) / Math.max(1, perMinute);
+        }
+    }
+
+    private static final class Bucket {
+        private final long capacity;
+        private final long nanosPerToken;
+        private long tokens;
+        private long lastRefill;
+
+        Bucket(Limit limit) {
+            this.capacity = limit.capacity();
+            this.nanosPerToken = limit.nanosPerToken();
+            this.tokens = capacity;
+            this.lastRefill = System.nanoTime();
+        }
+
+        /**
+         * Takes one token. Returns the tokens left, or minus the nanoseconds until one is available.
+         */
+        synchronized long tryAcquire(long now) {
+            refill(now);
+            if (tokens > 0) {
+                return --tokens;
+            }
+            return -(nanosPerToken - (now - lastRefill));
+        }
+
+        synchronized long secondsUntilFull(long now) {
+            long missing = capacity - tokens;
+            if (missing <= 0) {
+                return 0;
+            }
+            long nanos = missing * nanosPerToken - (now - lastRefill);
+            return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos + 999_999_999L));
+        }
+
+        private void refill(long now) {
+            long earned = (now - lastRefill) / nanosPerToken;
+            if (earned > 0) {
+                tokens = Math.min(capacity, tokens + earned);
+                lastRefill = tokens == capacity ? now : lastRefill + earned * nanosPerToken;
+            }
+        }
+    }
+}
@@ -0,0 +1,259 @@
+package app.security;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+
+/**
+ * Classifies request paths once per request for all security filters.
+ *
+ * The path rules are compiled into a segment trie at startup. A lookup walks
+ * the URI in place (no substrings, no regex), and the resulting
+ * {@link RequestClass} is stored as a request attribute together with the URI
+ * it was computed for, so later filters and the authorization rules reuse it
+ * while FORWARD and ERROR dispatches (e.g. to /error) are classified afresh.
+ *
+ * Rule syntax: {@code /a/b} matches exactly, {@code /a/**} matches /a and
+ * everything below it, and {@code /*.ext} matches any final segment ending in .ext.
+ */
+@Component
+public class RequestClassifier {
+
+    public static final String ATTRIBUTE = RequestClassifier.class.getName() + ".CLASS";
+    private static final String URI_ATTRIBUTE = RequestClassifier.class.getName() + ".URI";
+
+    static final int PUBLIC = 1;
+    static final int STATIC = 1 << 1;
+    static final int STRICT_ORIGIN = 1 << 2;
+    static final int LENIENT_ORIGIN = 1 << 3;
+
+    private static final String[] STATIC_RESOURCES = {
+        "/static/**", "/assets/**",
+        "/*.js", "/*.css", "/*.json", "/*.png", "/*.jpg",
+        "/*.jpeg", "/*.gif", "/*.svg", "/*.ico",
+        "/favicon.ico"
+    };
+
+    private static final String[] PUBLIC_ENDPOINTS = {
+        "/", "/index.html", "/error",
+        "/api/auth/register",
+        "/api/auth/login",
+        "/api/csrf", "/api/auth/refresh",
+        "/about", "/login", "/register", "/user"
+    };
+
+    // Origin MUST match the allowed origin (or a same-origin Referer)
+    private static final String[] STRICT_ORIGIN_PATHS = {
+        "/api/auth/login/**",
+        "/api/auth/register/**",
+        "/api/csrf/**"
+    };
+
+    // Origin is validated only when present
+    private static final String[] LENIENT_ORIGIN_PATHS = {
+        "/api/user/**",
+        "/api/auth/logout/**",
+        "/api/auth/logout-all/**",
+        "/api/demo/**"
+    };
+
+    private final Node root = new Node();
+
+    public RequestClassifier() {
+        addAll(STATIC_RESOURCES, PUBLIC | STATIC);
+        addAll(PUBLIC_ENDPOINTS, PUBLIC);
+        addAll(STRICT_ORIGIN_PATHS, STRICT_ORIGIN);
+        addAll(LENIENT_ORIGIN_PATHS, LENIENT_ORIGIN);
+    }
+
+    /**
+     * Class of the request's current URI, computed on first use and cached on the request.
+     */
+    public RequestClass classify(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        Object cached = request.getAttribute(ATTRIBUTE);
+        if (cached instanceof RequestClass requestClass && uri != null
+                && uri.equals(request.getAttribute(URI_ATTRIBUTE))) {
+            return requestClass;
+        }
+        RequestClass requestClass = RequestClass.of(match(uri));
+        request.setAttribute(ATTRIBUTE, requestClass);
+        request.setAttribute(URI_ATTRIBUTE, uri);
+        return requestClass;
+    }
+
+    public boolean isPublic(HttpServletRequest request) {
+        return classify(request).isPublic();
+    }
+
+    int match(String path) {
+        if (path == null || path.isEmpty() || path.charAt(0) != '/') {
+            return 0;
+        }
+        Node node = root;
+        int flags = node.subtreeFlags;
+        int start = 1;
+        int length = path.length();
+        if (start == length) {
+            return flags | node.exactFlags;
+        }
+        while (true) {
+            int end = path.indexOf('/', start);
+            if (end < 0) {
+                end = length;
+            }
+            if (end == start) {
+                return flags; // empty segment ("//" or trailing "/"): only prefix rules apply
+            }
+            boolean last = end == length;
+            if (last) {
+                flags |= node.extensionFlags(path, start, end);
+            }
+            Node child = node.child(path, start, end);
+            if (child == null) {
+                return flags;
+            }
+            node = child;
+            flags |= node.subtreeFlags;
+            if (last) {
+                return flags | node.exactFlags;
+            }
+            start = end + 1;
+        }
+    }
+
+    private void addAll(String[] patterns, int flags) {
+        for (String pattern : patterns) {
+            add(pattern, flags);
+        }
+    }
+
+    private void add(String pattern, int flags) {
+        if (pattern.equals("/")) {
+            root.exactFlags |= flags;
+            return;
+        }
+        String[] segments = pattern.substring(1).split("/");
+        Node node = root;
+        for (int i = 0; i < segments.length; i++) {
+            String segment = segments[i];
+            boolean last = i == segments.length - 1;
+            if (last && segment.equals("**")) {
+                node.subtreeFlags |= flags;
+                return;
+            }
+            if (last && segment.startsWith("*.")) {
+                node.addExtension(segment.substring(1), flags);
+                return;
+            }
+            node = node.childOrCreate(segment);
+        }
+        node.exactFlags |= flags;
+    }
+
+    // ---------------------------
+    // TRIE
+    // ---------------------------
+
+    private static final class Node {
+        private String[] names = new String[0];
+        private Node[] children = new Node[0];
+        private String[] extensions = new String[0];
+        private int[] extensionFlags = new int[0];
+        int exactFlags;
+        int subtreeFlags;
+
+        Node child(String path, int start, int end) {
+            int length = end - start;
+            for (int i = 0; i < names.length; i++) {
+                String name = names[i];
+                if (name.length() == length && path.regionMatches(start, name, 0, length)) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        int extensionFlags(String path, int start, int end) {
+            int flags = 0;
+            for (int i = 0; i < extensions.length; i++) {
+                String extension = extensions[i];
+                int length = extension.length();
+                if (end - start >= length && path.regionMatches(end - length, extension, 0, length)) {
+                    flags |= extensionFlags[i];
+                }
+            }
+            return flags;
+        }
+
+        Node childOrCreate(String name) {
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].equals(name)) {
+                    return children[i];
+                }
+            }
+            Node child = new Node();
+            names = Arrays.copyOf(names, names.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            names[names.length - 1] = name;
+            children[children.length - 1] = child;
+            return child;
+        }
+
+        void addExtension(String extension, int flags) {
+            extensions = Arrays.copyOf(extensions, extensions.length + 1);
+            extensionFlags = Arrays.copyOf(extensionFlags, extensionFlags.length + 1);
+            extensions[extensions.length - 1] = extension;
+            extensionFlags[extensionFlags.length - 1] = flags;
+        }
+    }
+
+    // ---------------------------
+    // RESULT
+    // ---------------------------
+
+    /**
+     * Immutable classification result; one shared instance per flag combination.
+     */
+    public static final class RequestClass {
+
+        private static final RequestClass[] INSTANCES = new RequestClass[16];
+
+        static {
+            for (int i = 0; i < INSTANCES.length; i++) {
+                INSTANCES[i] = new RequestClass(i);
+            }
+        }
+
+        private final int flags;
+
+        private RequestClass(int flags) {
+            this.flags = flags;
+        }
+
+        static RequestClass of(int flags) {
+            return INSTANCES[flags];
+        }
+
+        public boolean isPublic() {
+            return (flags & PUBLIC) != 0;
+        }
+
+        public boolean isStatic() {
+            return (flags & STATIC) != 0;
+        }
+
+        public boolean isStrictOrigin() {
+            return (flags & STRICT_ORIGIN) != 0;
+        }
+
+        public boolean isLenientOrigin() {
+            return (flags & LENIENT_ORIGIN) != 0;
+        }
+
+        public boolean requiresJwt() {
+            return !isPublic();
+        }
+    }
+}
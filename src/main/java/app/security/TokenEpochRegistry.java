@@ -0,0 +1,40 @@
+package app.security;
+
+import app.repository.UserRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Per-user token epoch for "log out everywhere".
+ *
+ * Every access and refresh token carries the user's epoch at issue time (the
+ * "epc" claim). Bumping the epoch revokes all of them at once: one row update,
+ * then one primitive map lookup per request, and no blacklist growth.
+ */
+@Component
+public class TokenEpochRegistry {
+
+    private final UserRepository userRepository;
+    private final UserCounterRegistry epochs;
+
+    public TokenEpochRegistry(UserRepository userRepository) {
+        this.userRepository = userRepository;
+        this.epochs = new UserCounterRegistry(userRepository::findTokenEpochById);
+    }
+
+    public boolean isCurrent(long userId, int tokenEpoch) {
+        return epochs.isCurrent(userId, tokenEpoch);
+    }
+
+    /**
+     * Invalidates every token issued to the user so far and returns the new epoch.
+     */
+    @Transactional
+    public int bump(long userId) {
+        userRepository.incrementTokenEpoch(userId);
+        int epoch = userRepository.findTokenEpochById(userId)
+                .orElseThrow(() -> new IllegalArgumentException("User not found with id: " + userId));
+        epochs.publish(userId, epoch);
+        return epoch;
+    }
+}
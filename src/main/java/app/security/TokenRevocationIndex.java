@@ -0,0 +1,242 @@
+package app.security;
+
+import app.model.TokenBlacklist;
+import app.repository.TokenBlacklistRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * In-memory index of revoked access-token jtis in front of token_blacklist.
+ *
+ * A Bloom filter answers "definitely not revoked" for almost every request
+ * without touching the database. On a Bloom hit the exact set of unexpired
+ * revoked jtis is checked, and only if that misses (a false positive) does the
+ * lookup fall through to {@link TokenBlacklistRepository#existsByJti(byte[])}.
+ *
+ * The index is per instance: it holds the rows present at startup plus the
+ * revocations made through this instance. A token revoked on another instance
+ * is not in this filter, so it is still accepted here until this instance
+ * restarts or the token expires; revocation across instances is eventually
+ * consistent, bounded by the access-token lifetime.
+ */
+@Component
+public class TokenRevocationIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenRevocationIndex.class);
+
+    private static final int MAX_NEGATIVE_ENTRIES = 10_000;
+
+    private final TokenBlacklistRepository tokenBlacklistRepository;
+    private final int expectedRevocations;
+
+    // jti -> token expiry (epoch ms)
+    private final Map<UUID, Long> revoked = new ConcurrentHashMap<>();
+    // Bloom false positives already confirmed against the database
+    private final Map<UUID, Boolean> confirmedNotRevoked = new ConcurrentHashMap<>();
+    private volatile BloomFilter bloom;
+
+    public TokenRevocationIndex(TokenBlacklistRepository tokenBlacklistRepository,
+                                @Value("${app.jwt.revocation.expected-entries:100000}") int expectedRevocations) {
+        this.tokenBlacklistRepository = tokenBlacklistRepository;
+        this.expectedRevocations = expectedRevocations;
+        this.bloom = new BloomFilter(expectedRevocations);
+    }
+
+    /**
+     * Loads the revocations that are still relevant once the application is up.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long now = System.currentTimeMillis();
+        for (TokenBlacklist row : tokenBlacklistRepository.findByExpiresAtAfter(LocalDateTime.now(ZoneOffset.UTC))) {
+            UUID jti = fromBytes(row.getJti());
+            revoked.put(jti, row.getExpiresAt().toInstant(ZoneOffset.UTC).toEpochMilli());
+        }
+        rebuild(now);
+        logger.info("Loaded {} revoked token ids", revoked.size());
+    }
+
+    /**
+     * Revokes an access token until its own expiry. The index is updated under
+     * the lock; the database write happens outside it, as a single insert that
+     * leaves an existing row alone.
+     */
+    public void revoke(Long userId, String jti, Instant expiresAt) {
+        UUID id = UUID.fromString(jti);
+        if (!index(id, expiresAt.toEpochMilli())) {
+            return;
+        }
+
+        LocalDateTime expiry = LocalDateTime.ofInstant(expiresAt, ZoneOffset.UTC);
+        tokenBlacklistRepository.insertIfAbsent(userId, toBytes(id), expiry, TokenBlacklist.bucketOf(expiry));
+    }
+
+    public boolean isRevoked(String jti) {
+        if (jti == null) {
+            return false;
+        }
+        UUID id;
+        try {
+            id = UUID.fromString(jti);
+        } catch (IllegalArgumentException e) {
+            return false; // we only ever issue UUID jtis, so it cannot be in the blacklist
+        }
+
+        if (!bloom.mightContain(id)) {
+            return false;
+        }
+        Long expiresAt = revoked.get(id);
+        if (expiresAt != null) {
+            return expiresAt > System.currentTimeMillis();
+        }
+        if (confirmedNotRevoked.containsKey(id)) {
+            return false;
+        }
+
+        boolean inDatabase = tokenBlacklistRepository.existsByJti(toBytes(id));
+        if (!inDatabase) {
+            if (confirmedNotRevoked.size() >= MAX_NEGATIVE_ENTRIES) {
+                confirmedNotRevoked.clear();
+            }
+            confirmedNotRevoked.put(id, Boolean.TRUE);
+        }
+        return inDatabase;
+    }
+
+    /**
+     * Forgets revocations whose tokens have expired anyway and rebuilds the Bloom filter.
+     */
+    public synchronized void pruneExpired() {
+        long now = System.currentTimeMillis();
+        revoked.values().removeIf(expiresAt -> expiresAt <= now);
+        confirmedNotRevoked.clear();
+        rebuild(now);
+    }
+
+    public int size() {
+        return revoked.size();
+    }
+
+    // False if the jti was already revoked
+    private synchronized boolean index(UUID id, long expiresAt) {
+        if (revoked.containsKey(id)) {
+            return false;
+        }
+        // Bloom first, so readers never see the exact set ahead of the filter
+        if (bloom.insertions() >= bloom.capacity()) {
+            // Full: the rebuild sizes the next filter at twice the live count, so this is amortized O(1)
+            revoked.put(id, expiresAt);
+            pruneExpired();
+        } else {
+            bloom.add(id);
+            revoked.put(id, expiresAt);
+        }
+        confirmedNotRevoked.remove(id);
+        return true;
+    }
+
+    private synchronized void rebuild(long now) {
+        BloomFilter fresh = new BloomFilter(Math.max(expectedRevocations, revoked.size() * 2));
+        revoked.forEach((id, expiresAt) -> {
+            if (expiresAt > now) {
+                fresh.add(id);
+            }
+        });
+        bloom = fresh;
+    }
+
+    // ---------------------------
+    // JTI ENCODING
+    // ---------------------------
+
+    public static byte[] toBytes(UUID jti) {
+        return ByteBuffer.allocate(16)
+                .putLong(jti.getMostSignificantBits())
+                .putLong(jti.getLeastSignificantBits())
+                .array();
+    }
+
+    public static UUID fromBytes(byte[] raw) {
+        ByteBuffer buffer = ByteBuffer.wrap(raw);
+        return new UUID(buffer.getLong(), buffer.getLong());
+    }
+
+    // ---------------------------
+    // BLOOM FILTER
+    // ---------------------------
+
+    private static final class BloomFilter {
+        private static final int HASHES = 7; // ~1% false positives at the expected load
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int capacity;
+        private volatile int insertions;
+
+        BloomFilter(int expectedInsertions) {
+            this.capacity = expectedInsertions;
+            long m = Math.max(1024L, (long) (expectedInsertions * 9.6)); // -n ln(0.01) / ln(2)^2
+            this.bits = new AtomicLongArray((int) ((m + 63) >>> 6));
+            this.bitCount = (long) bits.length() << 6;
+        }
+
+        // Called under the index lock
+        void add(UUID id) {
+            long h1 = mix(id.getLeastSignificantBits());
+            long h2 = mix(id.getMostSignificantBits()) | 1L;
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long current;
+                do {
+                    current = bits.get(word);
+                } while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask));
+            }
+            insertions++;
+        }
+
+        boolean mightContain(UUID id) {
+            long h1 = mix(id.getLeastSignificantBits());
+            long h2 = mix(id.getMostSignificantBits()) | 1L;
+            for (int i = 0; i < HASHES; i++) {
+                long bit = Long.remainderUnsigned(h1 + i * h2, bitCount);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int insertions() {
+            return insertions;
+        }
+
+        // Insertions the filter was sized for at ~1% false positives
+        int capacity() {
+            return capacity;
+        }
+
+        private static long mix(long h) {
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package app.security;
+
+import app.repository.UserRepository;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory view of each user's current token version.
+ *
+ * Used by the claims-only principal mode to reject access tokens minted before
+ * the user's last profile or password change, without a DB query per request.
+ * A user's version is read from the database once and then kept up to date by
+ * {@link #publish(long, int)}.
+ */
+@Component
+public class TokenVersionRegistry {
+
+    private final UserCounterRegistry versions;
+
+    public TokenVersionRegistry(UserRepository userRepository) {
+        this.versions = new UserCounterRegistry(userRepository::findTokenVersionById);
+    }
+
+    /**
+     * Current version for the user, or -1 if the user no longer exists.
+     */
+    public int currentVersion(long userId) {
+        return versions.current(userId);
+    }
+
+    public boolean isCurrent(long userId, int tokenVersion) {
+        return versions.isCurrent(userId, tokenVersion);
+    }
+
+    /**
+     * Records a new version; deferred until commit when called inside a transaction.
+     */
+    public void publish(long userId, int version) {
+        versions.publish(userId, version);
+    }
+}
@@ -0,0 +1,78 @@
+package app.security;
+
+import app.common.ConcurrentLongCache;
+import app.common.LongIntMap;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+import java.util.function.LongFunction;
+
+/**
+ * Primitive long -> int view of a monotonically increasing per-user counter
+ * (token version, token epoch). Each user's value is read from the database
+ * once; afterwards only {@link #publish(long, int)} changes it. Users the
+ * database does not know are remembered for a while as well, so tokens of a
+ * deleted user do not cost a query per request.
+ */
+final class UserCounterRegistry {
+
+    static final int UNKNOWN = -1;
+
+    private static final int MISSING_MAX_ENTRIES = 10_000;
+    private static final long MISSING_TTL_MS = 60_000;
+
+    private final LongIntMap values = new LongIntMap();
+    private final ConcurrentLongCache<Boolean> missing = new ConcurrentLongCache<>(MISSING_MAX_ENTRIES, MISSING_TTL_MS);
+    private final LongFunction<Optional<Integer>> loader;
+
+    UserCounterRegistry(LongFunction<Optional<Integer>> loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Current value for the user, or {@link #UNKNOWN} if the user no longer exists.
+     */
+    int current(long userId) {
+        int value = values.get(userId, UNKNOWN);
+        if (value != UNKNOWN) {
+            return value;
+        }
+        if (missing.get(userId) != null) {
+            return UNKNOWN;
+        }
+        Integer stored = loader.apply(userId).orElse(null);
+        if (stored == null) {
+            missing.put(userId, Boolean.TRUE);
+            return UNKNOWN;
+        }
+        // A concurrent publish() may already hold a newer value
+        return values.putIfGreater(userId, stored);
+    }
+
+    boolean isCurrent(long userId, int tokenValue) {
+        int current = current(userId);
+        return current != UNKNOWN && tokenValue >= current;
+    }
+
+    /**
+     * Records a new value; deferred until commit when called inside a transaction.
+     */
+    void publish(long userId, int value) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    store(userId, value);
+                }
+            });
+        } else {
+            store(userId, value);
+        }
+    }
+
+    private void store(long userId, int value) {
+        values.putIfGreater(userId, value);
+        missing.invalidate(userId);
+    }
+}
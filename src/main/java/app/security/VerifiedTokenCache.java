@@ -0,0 +1,123 @@
+package app.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of access tokens whose signature has already been verified.
+ *
+ * Entries are keyed by the SHA-256 digest of the raw token (the token itself is
+ * never retained), live no longer than the token's own expiry and are evicted
+ * least-recently-used per stripe once the stripe is full.
+ */
+public class VerifiedTokenCache<V> {
+
+    private static final int STRIPES = 16;
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    });
+
+    private final Stripe<V>[] stripes;
+
+    @SuppressWarnings("unchecked")
+    public VerifiedTokenCache(int maxEntries) {
+        int perStripe = Math.max(1, maxEntries / STRIPES);
+        this.stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe<>(perStripe);
+        }
+    }
+
+    /**
+     * Returns the cached value for the token, or null if absent or past its expiry.
+     */
+    public V get(String token) {
+        TokenDigest key = TokenDigest.of(token);
+        Stripe<V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            Entry<V> entry = stripe.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAtMillis <= System.currentTimeMillis()) {
+                stripe.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+
+    /**
+     * Caches a verified value until {@code expiresAtMillis}; already-expired values are ignored.
+     */
+    public void put(String token, V value, long expiresAtMillis) {
+        if (expiresAtMillis <= System.currentTimeMillis()) {
+            return;
+        }
+        TokenDigest key = TokenDigest.of(token);
+        Stripe<V> stripe = stripeFor(key);
+        synchronized (stripe) {
+            stripe.put(key, new Entry<>(value, expiresAtMillis));
+        }
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe<V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+
+    private Stripe<V> stripeFor(TokenDigest key) {
+        return stripes[(int) (key.h0 & (STRIPES - 1))];
+    }
+
+    // ---------------------------
+    // INTERNALS
+    // ---------------------------
+
+    private static final class Stripe<V> extends LinkedHashMap<TokenDigest, Entry<V>> {
+        private final int capacity;
+
+        Stripe(int capacity) {
+            super(16, 0.75f, true); // access order -> LRU
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<TokenDigest, Entry<V>> eldest) {
+            return size() > capacity;
+        }
+    }
+
+    private record Entry<V>(V value, long expiresAtMillis) {
+    }
+
+    private record TokenDigest(long h0, long h1, long h2, long h3) {
+
+        static TokenDigest of(String token) {
+            MessageDigest md = SHA_256.get();
+            byte[] d = md.digest(token.getBytes(StandardCharsets.US_ASCII));
+            return new TokenDigest(toLong(d, 0), toLong(d, 8), toLong(d, 16), toLong(d, 24));
+        }
+
+        private static long toLong(byte[] b, int off) {
+            long v = 0;
+            for (int i = 0; i < 8; i++) {
+                v = (v << 8) | (b[off + i] & 0xFF);
+            }
+            return v;
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.WritableRaster;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Downscales by area averaging over packed RGB int rasters: every output pixel
+ * is the coverage-weighted mean of the source pixels under it.
+ *
+ * Source rows are accumulated into one float row per channel by a
+ * {@link RowKernel}, vectorised with jdk.incubator.vector when the module is
+ * present (--add-modules jdk.incubator.vector) and scalar otherwise; that row
+ * is then averaged horizontally into the output. Transparent pixels are
+ * flattened onto white first, as the JPEG encoder would. Enlarging is not
+ * averaging and goes to the fallback resizer.
+ */
+public class AreaAverageResizer implements ProfileImageResizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(AreaAverageResizer.class);
+
+    static final RowKernel SCALAR = (pixels, offset, width, weight, red, green, blue) ->
+            accumulateScalar(pixels, offset, 0, width, weight, red, green, blue);
+
+    private final RowKernel kernel;
+    private final ProfileImageResizer fallback;
+
+    public AreaAverageResizer(ProfileImageResizer fallback) {
+        this(vectorKernel(), fallback);
+    }
+
+    AreaAverageResizer(RowKernel kernel, ProfileImageResizer fallback) {
+        this.kernel = kernel;
+        this.fallback = fallback;
+    }
+
+    @Override
+    public BufferedImage prepare(BufferedImage source) {
+        if (isPackedRgb(source)) {
+            return source;
+        }
+        BufferedImage rgb = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        g.drawImage(source, 0, 0, Color.WHITE, null);
+        g.dispose();
+        return rgb;
+    }
+
+    @Override
+    public BufferedImage resize(BufferedImage source, int size) throws IOException {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        double scale = Math.min((double) size / width, (double) size / height);
+        if (scale >= 1) {
+            return fallback.resize(source, size);
+        }
+        int targetWidth = Math.max(1, (int) Math.round(width * scale));
+        int targetHeight = Math.max(1, (int) Math.round(height * scale));
+
+        int[] pixels = pixels(prepare(source));
+        Spans rows = Spans.of(height, targetHeight);
+        Spans columns = Spans.of(width, targetWidth);
+
+        BufferedImage target = new BufferedImage(targetWidth, targetHeight, BufferedImage.TYPE_INT_RGB);
+        int[] out = pixels(target);
+        float[] red = new float[width];
+        float[] green = new float[width];
+        float[] blue = new float[width];
+        for (int ty = 0; ty < targetHeight; ty++) {
+            Arrays.fill(red, 0f);
+            Arrays.fill(green, 0f);
+            Arrays.fill(blue, 0f);
+            for (int k = rows.offset[ty]; k < rows.offset[ty + 1]; k++) {
+                int y = rows.first[ty] + k - rows.offset[ty];
+                kernel.accumulate(pixels, y * width, width, rows.weight[k], red, green, blue);
+            }
+            int row = ty * targetWidth;
+            for (int tx = 0; tx < targetWidth; tx++) {
+                float r = 0, g = 0, b = 0;
+                int x = columns.first[tx];
+                for (int k = columns.offset[tx]; k < columns.offset[tx + 1]; k++, x++) {
+                    float w = columns.weight[k];
+                    r += w * red[x];
+                    g += w * green[x];
+                    b += w * blue[x];
+                }
+                out[row + tx] = channel(r) << 16 | channel(g) << 8 | channel(b);
+            }
+        }
+        return target;
+    }
+
+    /**
+     * Adds {@code weight} times each pixel of one source row to the channel rows.
+     */
+    @FunctionalInterface
+    interface RowKernel {
+        void accumulate(int[] pixels, int offset, int width, float weight, float[] red, float[] green, float[] blue);
+    }
+
+    // Columns from..width; the vector kernel finishes its tail here
+    static void accumulateScalar(int[] pixels, int offset, int from, int width, float weight,
+                                 float[] red, float[] green, float[] blue) {
+        for (int x = from; x < width; x++) {
+            int p = pixels[offset + x];
+            red[x] += weight * ((p >>> 16) & 0xff);
+            green[x] += weight * ((p >>> 8) & 0xff);
+            blue[x] += weight * (p & 0xff);
+        }
+    }
+
+    // The vector kernel class only links when the incubator module is in the boot layer.
+    // It is loaded by name: the pom compiles it separately, with the module added.
+    static RowKernel vectorKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()) {
+            try {
+                RowKernel kernel = (RowKernel) Class.forName("app.service.VectorRowKernel")
+                        .getDeclaredConstructor().newInstance();
+                logger.info("Area-average resizer using the Vector API ({})", kernel);
+                return kernel;
+            } catch (ReflectiveOperationException | LinkageError e) {
+                logger.warn("Vector API unavailable, area-average resizer falls back to scalar code", e);
+            }
+        }
+        return SCALAR;
+    }
+
+    private static int channel(float value) {
+        return Math.min(255, (int) (value + 0.5f));
+    }
+
+    private static boolean isPackedRgb(BufferedImage image) {
+        WritableRaster raster = image.getRaster();
+        return image.getType() == BufferedImage.TYPE_INT_RGB
+                && raster.getParent() == null
+                && raster.getDataBuffer().getSize() == image.getWidth() * image.getHeight();
+    }
+
+    private static int[] pixels(BufferedImage image) {
+        return ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * For each target index, the source indices it covers (from first[i], offset[i+1] - offset[i]
+     * of them) and their weights, the fraction of the target pixel each one covers.
+     */
+    private record Spans(int[] first, int[] offset, float[] weight) {
+
+        static Spans of(int sourceLength, int targetLength) {
+            double ratio = (double) sourceLength / targetLength;
+            int[] first = new int[targetLength];
+            int[] offset = new int[targetLength + 1];
+            float[] weight = new float[targetLength * ((int) Math.ceil(ratio) + 1)];
+            int k = 0;
+            for (int i = 0; i < targetLength; i++) {
+                double start = i * ratio;
+                double end = Math.min(sourceLength, (i + 1) * ratio);
+                first[i] = (int) start;
+                offset[i] = k;
+                for (int j = (int) start; j < end; j++) {
+                    weight[k++] = (float) ((Math.min(j + 1, end) - Math.max(j, start)) / ratio);
+                }
+            }
+            offset[targetLength] = k;
+            return new Spans(first, offset, weight);
+        }
+    }
+}
@@ -6,10 +6,17 @@ import app.dto.UserInfo;
 import app.model.User;
 import app.model.UserRole;
 import app.repository.UserRepository;
+import app.security.AccessTokenVerification;
 import app.security.CustomUserDetails;
 import app.security.JwtService;
+import app.security.LoginAttemptTracker;
+import app.security.PrincipalCache;
+import app.security.TokenEpochRegistry;
+import app.security.TokenRevocationIndex;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
@@ -22,29 +29,51 @@ public class AuthService {
     private final JwtService jwtService;
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenRevocationIndex tokenRevocationIndex;
+    private final TokenEpochRegistry tokenEpochRegistry;
+    private final PrincipalCache principalCache;
+    private final LoginAttemptTracker loginAttemptTracker;
 
     public AuthService(AuthenticationManager authenticationManager,
                        JwtService jwtService,
                        UserRepository userRepository,
-                       PasswordEncoder passwordEncoder) {
+                       PasswordEncoder passwordEncoder,
+                       TokenRevocationIndex tokenRevocationIndex,
+                       TokenEpochRegistry tokenEpochRegistry,
+                       PrincipalCache principalCache,
+                       LoginAttemptTracker loginAttemptTracker) {
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.tokenRevocationIndex = tokenRevocationIndex;
+        this.tokenEpochRegistry = tokenEpochRegistry;
+        this.principalCache = principalCache;
+        this.loginAttemptTracker = loginAttemptTracker;
     }
 
     // -------------------------
     // LOGIN
     // -------------------------
-    public Map<String, Object> login(LoginRequest request) {
-        var authentication = authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(
-                        request.getEmail(), request.getPassword()));
+    public Map<String, Object> login(LoginRequest request, String clientAddress) {
+        // Refused before any user lookup or BCrypt work
+        loginAttemptTracker.checkAllowed(request.getEmail(), clientAddress);
+
+        Authentication authentication;
+        try {
+            authentication = authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(
+                            request.getEmail(), request.getPassword()));
+        } catch (AuthenticationException e) {
+            loginAttemptTracker.recordFailure(request.getEmail(), clientAddress);
+            throw e;
+        }
+        loginAttemptTracker.recordSuccess(request.getEmail(), clientAddress);
 
         CustomUserDetails principal = (CustomUserDetails) authentication.getPrincipal();
 
         String accessToken = jwtService.generateToken(principal);
-        String refreshToken = jwtService.generateRefreshToken(principal.getId());
+        String refreshToken = jwtService.generateRefreshToken(principal.getId(), principal.getTokenEpoch());
 
         return Map.of(
                 "access_token", accessToken,
@@ -79,16 +108,43 @@ public class AuthService {
         }
 
         Long userId = jwtService.getUserIdFromRefreshToken(refreshToken);
+        if (!tokenEpochRegistry.isCurrent(userId, jwtService.getEpochFromRefreshToken(refreshToken))) {
+            throw new RuntimeException("Refresh token has been revoked");
+        }
 
         User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         String newAccessToken = jwtService.generateToken(user);
-        String newRefreshToken = jwtService.generateRefreshToken(user.getId());
+        String newRefreshToken = jwtService.generateRefreshToken(user.getId(), user.getTokenEpoch());
 
         return Map.of(
                 "access_token", newAccessToken,
                 "refresh_token", newRefreshToken
         );
     }
+
+    // -------------------------
+    // LOGOUT
+    // -------------------------
+    public void logout(String accessToken) {
+        AccessTokenVerification verification = jwtService.verifyAccessToken(accessToken);
+        if (!verification.isValid() || verification.getJti() == null || verification.getExpiresAt() == null) {
+            return; // nothing left to revoke
+        }
+
+        tokenRevocationIndex.revoke(
+                Long.valueOf(verification.getSubject()),
+                verification.getJti(),
+                verification.getExpiresAt());
+    }
+
+    // -------------------------
+    // LOGOUT EVERYWHERE
+    // -------------------------
+    public void logoutAll(Long userId) {
+        // One counter bump revokes every access and refresh token issued so far
+        tokenEpochRegistry.bump(userId);
+        principalCache.invalidate(userId);
+    }
 }
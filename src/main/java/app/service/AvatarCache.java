@@ -0,0 +1,76 @@
+package app.service;
+
+import app.common.CacheMetrics;
+import app.common.ConcurrentLongCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Encoded avatars keyed by content hash, bounded by total bytes, plus each
+ * user's current default-size hash.
+ *
+ * Image bytes are keyed by the first 64 bits of their SHA-256, so users with
+ * identical images share one entry, and an entry can never go stale; only the
+ * user-to-hash mapping needs invalidating when an image changes.
+ */
+@Component
+public class AvatarCache {
+
+    // Array header plus the cache's per-slot bookkeeping
+    private static final int ENTRY_OVERHEAD = 48;
+
+    private final ConcurrentLongCache<String> hashes;
+    private final ConcurrentLongCache<byte[]> images;
+
+    public AvatarCache(@Value("${app.profile-images.cache.max-bytes:16777216}") long maxBytes,
+                       @Value("${app.profile-images.cache.max-entries:4096}") int maxEntries,
+                       @Value("${app.profile-images.cache.ttl-ms:600000}") long ttlMs,
+                       MeterRegistry meterRegistry) {
+        this.hashes = new ConcurrentLongCache<>(maxEntries, ttlMs);
+        this.images = new ConcurrentLongCache<>(maxEntries, 0, maxBytes, bytes -> bytes.length + ENTRY_OVERHEAD);
+        CacheMetrics.register(meterRegistry, "avatar-hashes", hashes);
+        CacheMetrics.register(meterRegistry, "avatars", images);
+    }
+
+    /**
+     * The user's current default-size content hash, or null if not cached.
+     */
+    public String hashOf(long userId) {
+        return hashes.get(userId);
+    }
+
+    public void putHash(long userId, String contentHash) {
+        hashes.put(userId, contentHash);
+    }
+
+    public byte[] get(String contentHash) {
+        return images.get(keyOf(contentHash));
+    }
+
+    public void put(String contentHash, byte[] image) {
+        images.put(keyOf(contentHash), image);
+    }
+
+    /**
+     * Drops the user's hash now and again after the surrounding transaction commits,
+     * so a read racing the update cannot re-cache the old image.
+     */
+    public void invalidate(long userId) {
+        hashes.invalidate(userId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    hashes.invalidate(userId);
+                }
+            });
+        }
+    }
+
+    private static long keyOf(String contentHash) {
+        return Long.parseUnsignedLong(contentHash, 0, 16, 16);
+    }
+}
@@ -2,22 +2,27 @@ package app.service;
 
 import app.repository.UserRepository;
 import app.security.CustomUserDetails;
+import app.security.PrincipalCache;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Service that loads user details for Spring Security.
  * Supports loading by email (for login) and by ID (for JWT validation).
  */
 @Service
-public class CustomUserDetailsService implements UserDetailsService {
+public class CustomUserDetailsService implements UserDetailsService, UserDetailsPasswordService {
 
     private final UserRepository userRepository;
+    private final PrincipalCache principalCache;
 
-    public CustomUserDetailsService(UserRepository userRepository) {
+    public CustomUserDetailsService(UserRepository userRepository, PrincipalCache principalCache) {
         this.userRepository = userRepository;
+        this.principalCache = principalCache;
     }
 
     /**
@@ -26,16 +31,36 @@ public class CustomUserDetailsService implements UserDetailsService {
     @Override
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         return userRepository.findByEmail(email)
-                .map(CustomUserDetails::new)
+                .map(CustomUserDetails::withPassword)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + email));
     }
 
     /**
      * Used by JwtAuthenticationFilter when validating JWT (sub = user ID).
+     * Served from the principal cache; only misses reach the database.
      */
-    public UserDetails loadUserById(Long id) throws UsernameNotFoundException {
-        return userRepository.findById(id)
+    public UserDetails loadUserById(long id) throws UsernameNotFoundException {
+        CustomUserDetails principal = principalCache.get(id, key -> userRepository.findById(key)
                 .map(CustomUserDetails::new)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found with id: " + id));
+                .orElse(null));
+        if (principal == null) {
+            throw new UsernameNotFoundException("User not found with id: " + id);
+        }
+        return principal;
+    }
+
+    /**
+     * Called by DaoAuthenticationProvider after a successful login whose stored hash
+     * needs upgrading; {@code newPassword} is already encoded.
+     */
+    @Override
+    @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        return userRepository.findByEmail(user.getUsername())
+                .map(entity -> {
+                    entity.setPassword(newPassword);
+                    return CustomUserDetails.withPassword(userRepository.save(entity));
+                })
+                .orElseThrow(() -> new UsernameNotFoundException("User not found with email: " + user.getUsername()));
     }
-}
\ No newline at end of file
+}
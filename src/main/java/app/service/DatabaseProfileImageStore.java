@@ -0,0 +1,35 @@
+package app.service;
+
+import app.repository.ProfileImageBlobRepository;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Keeps images in profile_image_blobs.image_data. Also the read fallback for
+ * blobs not yet moved to another store.
+ */
+@Component
+public class DatabaseProfileImageStore implements ProfileImageStore {
+
+    private final ProfileImageBlobRepository repository;
+
+    public DatabaseProfileImageStore(ProfileImageBlobRepository repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public String write(byte[] data) {
+        return null; // the caller keeps the bytes on the blob row
+    }
+
+    @Override
+    public Optional<StoredImage> read(String contentKey) {
+        return contentKey != null ? repository.findImageData(contentKey).map(StoredImage::ofBytes) : Optional.empty();
+    }
+
+    @Override
+    public void release(String contentKey) {
+        // Deleting the blob row removes the bytes
+    }
+}
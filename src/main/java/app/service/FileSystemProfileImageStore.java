@@ -0,0 +1,82 @@
+package app.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Optional;
+
+/**
+ * Content-addressed image files: {root}/ab/cd/abcd...(sha256).jpg.
+ *
+ * Identical images share one file, and a file never changes once written, so
+ * it can be handed to the container for sendfile. Writes go to a temp file
+ * first and are moved into place atomically.
+ */
+@Component
+@ConditionalOnProperty(name = "app.profile-images.store", havingValue = "fs")
+public class FileSystemProfileImageStore implements ProfileImageStore {
+
+    private final Path root;
+
+    public FileSystemProfileImageStore(@Value("${app.profile-images.fs.root:data/profile-images}") String root)
+            throws IOException {
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        Files.createDirectories(this.root);
+    }
+
+    @Override
+    public String write(byte[] data) throws IOException {
+        String hash = ProfileImageStore.contentHash(data);
+        Path target = pathOf(hash);
+        if (Files.exists(target)) {
+            return hash; // same content already stored
+        }
+
+        Files.createDirectories(target.getParent());
+        Path temp = Files.createTempFile(target.getParent(), hash, ".tmp");
+        try {
+            Files.write(temp, data);
+            try {
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        return hash;
+    }
+
+    @Override
+    public Optional<StoredImage> read(String contentKey) throws IOException {
+        if (contentKey == null) {
+            return Optional.empty();
+        }
+        Path file = pathOf(contentKey);
+        if (!Files.isRegularFile(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(StoredImage.ofFile(file, Files.size(file)));
+    }
+
+    @Override
+    public void release(String contentKey) throws IOException {
+        if (contentKey != null) {
+            Files.deleteIfExists(pathOf(contentKey));
+        }
+    }
+
+    private Path pathOf(String hash) {
+        if (hash.length() != 64 || !hash.chars().allMatch(c -> (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f'))) {
+            throw new IllegalArgumentException("Not a SHA-256 content key: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash + ".jpg");
+    }
+}
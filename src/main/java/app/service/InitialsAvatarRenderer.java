@@ -0,0 +1,115 @@
+package app.service;
+
+import app.common.CacheMetrics;
+import app.common.ConcurrentLongCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * SVG avatars for users without an uploaded image: up to two initials from the
+ * name on a background colour picked from a fixed palette by user id.
+ *
+ * The output depends only on (initials, colour, size), packed into one long,
+ * so renderings are cached by that key and shared by every user with the same
+ * initials and colour. The ETag is derived from the bytes.
+ */
+@Component
+public class InitialsAvatarRenderer {
+
+    // Bump when the drawing changes, so versioned URLs cached by clients are not reused
+    private static final int REVISION = 1;
+
+    private static final String[] PALETTE = {
+            "#e11d48", "#db2777", "#c026d3", "#9333ea", "#7c3aed", "#4f46e5",
+            "#2563eb", "#0284c7", "#0891b2", "#0d9488", "#059669", "#16a34a",
+            "#65a30d", "#ca8a04", "#d97706", "#ea580c"
+    };
+
+    private final ConcurrentLongCache<Rendering> renderings;
+
+    public InitialsAvatarRenderer(@Value("${app.profile-images.initials.max-entries:2048}") int maxEntries,
+                                  MeterRegistry meterRegistry) {
+        this.renderings = new ConcurrentLongCache<>(maxEntries, 0);
+        CacheMetrics.register(meterRegistry, "initials-avatars", renderings);
+    }
+
+    /**
+     * Changes whenever the initials or colour would; used as the URL version.
+     */
+    public String version(long userId, String name) {
+        return "i" + REVISION + "-" + Long.toString(appearanceOf(userId, name), 36);
+    }
+
+    public Rendering render(long userId, String name, int size) {
+        long appearance = appearanceOf(userId, name);
+        long key = appearance << 16 | size;
+        Rendering rendering = renderings.get(key);
+        if (rendering == null) {
+            rendering = draw(initialsOf(appearance), PALETTE[(int) (appearance & 0xf)], size);
+            renderings.put(key, rendering);
+        }
+        return rendering;
+    }
+
+    /**
+     * First letter or digit of the first and last words of the name, upper-cased;
+     * "?" when there is none.
+     */
+    static String initials(String name) {
+        if (name == null) {
+            return "?";
+        }
+        String[] words = name.trim().split("\\s+");
+        StringBuilder initials = new StringBuilder(2);
+        appendInitial(initials, words[0]);
+        if (words.length > 1) {
+            appendInitial(initials, words[words.length - 1]);
+        }
+        return initials.isEmpty() ? "?" : initials.toString();
+    }
+
+    // Two 16-bit initials and a 4-bit palette index, leaving 16 bits for the size in the cache key
+    private static long appearanceOf(long userId, String name) {
+        String initials = initials(name);
+        long first = initials.charAt(0);
+        long second = initials.length() > 1 ? initials.charAt(1) : 0;
+        long colour = Long.hashCode(userId * 0x9E3779B97F4A7C15L) & (PALETTE.length - 1);
+        return first << 20 | second << 4 | colour;
+    }
+
+    private static String initialsOf(long appearance) {
+        char first = (char) (appearance >>> 20);
+        char second = (char) (appearance >>> 4);
+        return second == 0 ? String.valueOf(first) : "" + first + second;
+    }
+
+    private static void appendInitial(StringBuilder initials, String word) {
+        for (int i = 0; i < word.length(); i++) {
+            char c = word.charAt(i);
+            // BMP only, so an initial fits in one char; surrogates are skipped
+            if (Character.isLetterOrDigit(c)) {
+                initials.append(Character.toUpperCase(c));
+                return;
+            }
+        }
+    }
+
+    // Initials are letters or digits, so nothing in the markup needs escaping
+    private static Rendering draw(String initials, String colour, int size) {
+        String svg = "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + size + "\" height=\"" + size
+                + "\" viewBox=\"0 0 100 100\">"
+                + "<rect width=\"100\" height=\"100\" fill=\"" + colour + "\"/>"
+                + "<text x=\"50\" y=\"50\" dy=\".35em\" text-anchor=\"middle\" fill=\"#fff\""
+                + " font-family=\"system-ui,-apple-system,'Segoe UI',Roboto,Helvetica,Arial,sans-serif\""
+                + " font-size=\"" + (initials.length() > 1 ? 40 : 48) + "\" font-weight=\"600\">"
+                + initials + "</text></svg>";
+        byte[] bytes = svg.getBytes(StandardCharsets.UTF_8);
+        return new Rendering(bytes, "\"" + ProfileImageStore.contentHash(bytes).substring(0, 32) + "\"");
+    }
+
+    public record Rendering(byte[] svg, String etag) {
+    }
+}
@@ -0,0 +1,59 @@
+package app.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+
+/**
+ * Deletes profile image blobs no user points at any more. A blob is only
+ * collected after staying unreferenced for the grace period, so an image that
+ * is replaced and uploaded again soon after is reused instead of rewritten.
+ */
+@Service
+public class ProfileImageBlobCollector {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileImageBlobCollector.class);
+
+    private final UserProfileImageService userProfileImageService;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final Duration grace;
+    private final Counter collected;
+
+    public ProfileImageBlobCollector(UserProfileImageService userProfileImageService,
+                                     @Value("${app.profile-images.gc.batch-size:100}") int batchSize,
+                                     @Value("${app.profile-images.gc.max-batches:10}") int maxBatchesPerRun,
+                                     @Value("${app.profile-images.gc.grace-ms:600000}") long graceMs,
+                                     MeterRegistry meterRegistry) {
+        this.userProfileImageService = userProfileImageService;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+        this.grace = Duration.ofMillis(graceMs);
+        this.collected = Counter.builder("profile.image.blobs.collected")
+                .description("Unreferenced profile image blobs deleted")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.profile-images.gc.interval-ms:300000}",
+               initialDelayString = "${app.profile-images.gc.initial-delay-ms:60000}")
+    public void collect() {
+        int removed = 0;
+        for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+            int count = userProfileImageService.collectOrphans(batchSize, grace);
+            removed += count;
+            if (count < batchSize) {
+                break;
+            }
+        }
+        collected.increment(removed);
+        if (removed > 0) {
+            logger.info("Deleted {} unreferenced profile image blobs", removed);
+        }
+    }
+}
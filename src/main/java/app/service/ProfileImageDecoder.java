@@ -0,0 +1,86 @@
+package app.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+
+/**
+ * Decodes uploaded images for thumbnailing with bounded memory.
+ *
+ * The dimensions are read from the image header before any pixels are
+ * decoded, so decompression bombs are rejected up front. The decode itself
+ * uses source subsampling: only every n-th pixel of every n-th row is kept,
+ * which leaves a bitmap a few times the target size instead of the full
+ * resolution image.
+ */
+@Component
+public class ProfileImageDecoder {
+
+    // The subsampled image keeps at least this many times the target size for a clean downscale
+    private static final int OVERSAMPLING = 2;
+
+    private final long maxPixels;
+    private final int maxDimension;
+
+    public ProfileImageDecoder(@Value("${app.profile-images.max-pixels:50000000}") long maxPixels,
+                               @Value("${app.profile-images.max-dimension:16384}") int maxDimension) {
+        this.maxPixels = maxPixels;
+        this.maxDimension = maxDimension;
+    }
+
+    /**
+     * Decodes the first image of the stream, subsampled so that its longer side
+     * stays close to {@code targetSize * 2}.
+     */
+    public BufferedImage decode(InputStream in, int targetSize) throws IOException {
+        try (ImageInputStream input = ImageIO.createImageInputStream(in)) {
+            if (input == null) {
+                throw new ProfileImageRejectedException("Invalid image file");
+            }
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+            if (!readers.hasNext()) {
+                throw new ProfileImageRejectedException("Unsupported image format");
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                checkDimensions(width, height);
+
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = subsampling(width, height, targetSize);
+                if (step > 1) {
+                    param.setSourceSubsampling(step, step, 0, 0);
+                }
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void checkDimensions(int width, int height) {
+        if (width <= 0 || height <= 0) {
+            throw new ProfileImageRejectedException("Invalid image file");
+        }
+        if (width > maxDimension || height > maxDimension || (long) width * height > maxPixels) {
+            throw new ProfileImageRejectedException(
+                    "Image is too large (" + width + "x" + height + ")");
+        }
+    }
+
+    static int subsampling(int width, int height, int targetSize) {
+        int longest = Math.max(width, height);
+        return Math.max(1, longest / (targetSize * OVERSAMPLING));
+    }
+}
@@ -0,0 +1,55 @@
+package app.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+
+/**
+ * Moves profile images still stored as BLOBs into the filesystem store, a few
+ * small transactions per run so the 5-connection pool is never monopolised.
+ * Until a row is moved it keeps being served from the database.
+ */
+@Service
+@ConditionalOnProperty(name = "app.profile-images.store", havingValue = "fs")
+public class ProfileImageMigrator {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileImageMigrator.class);
+
+    private final UserProfileImageService userProfileImageService;
+
+    @Value("${app.profile-images.migration.batch-size:50}")
+    private int batchSize;
+
+    @Value("${app.profile-images.migration.max-batches:20}")
+    private int maxBatchesPerRun;
+
+    public ProfileImageMigrator(UserProfileImageService userProfileImageService) {
+        this.userProfileImageService = userProfileImageService;
+    }
+
+    @Scheduled(fixedDelayString = "${app.profile-images.migration.interval-ms:60000}",
+               initialDelayString = "${app.profile-images.migration.initial-delay-ms:30000}")
+    public void migrate() {
+        int moved = 0;
+        try {
+            for (int batch = 0; batch < maxBatchesPerRun; batch++) {
+                int count = userProfileImageService.migrateBatch(batchSize);
+                moved += count;
+                if (count < batchSize) {
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Profile image migration failed after moving {} images", moved, e);
+            return;
+        }
+        if (moved > 0) {
+            logger.info("Moved {} profile images from the database to the filesystem store", moved);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package app.service;
+
+/**
+ * Thrown when the profile image pool has no queue space or byte budget left.
+ * Controllers answer it with 503 and a Retry-After header.
+ */
+public class ProfileImageProcessingBusyException extends RuntimeException {
+
+    private final int retryAfterSeconds;
+
+    public ProfileImageProcessingBusyException(int retryAfterSeconds) {
+        super("Profile image processing capacity exhausted, retry later");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,193 @@
+package app.service;
+
+import app.common.StripedLruMap;
+import app.dto.ProfileImageJobStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+
+/**
+ * Processes profile image uploads off the request thread.
+ *
+ * An upload is accepted once its bytes fit in the in-flight byte budget and
+ * the bounded queue has room; decoding, resizing and saving then run on a
+ * small worker pool. The budget covers uploads from acceptance until their
+ * job finishes, so concurrent uploads cannot pile up in the heap. Only the
+ * latest job per user is tracked. Jobs of the same user run one at a time, in
+ * the order they get their user's lock; a job superseded by a newer upload
+ * before it gets the lock is dropped, so an older upload can never overwrite a
+ * newer image.
+ */
+@Service
+public class ProfileImageProcessor {
+
+    private static final Logger logger = LoggerFactory.getLogger(ProfileImageProcessor.class);
+
+    private static final int USER_LOCK_STRIPES = 64;
+
+    private final UserProfileImageService userProfileImageService;
+    private final int maxInFlightBytes;
+    private final int retryAfterSeconds;
+    private final Semaphore byteBudget;
+    private final ThreadPoolExecutor executor;
+    // user id -> latest job
+    private final StripedLruMap<Long, ProfileImageJobStatus> jobs;
+    // Serializes processing per user; striped, so unrelated users rarely share one
+    private final ReentrantLock[] userLocks = new ReentrantLock[USER_LOCK_STRIPES];
+
+    private final Timer queueTimer;
+    private final Timer processingTimer;
+    private final Counter rejected;
+
+    public ProfileImageProcessor(UserProfileImageService userProfileImageService,
+                                 @Value("${app.profile-images.processing.pool-size:2}") int poolSize,
+                                 @Value("${app.profile-images.processing.queue-capacity:32}") int queueCapacity,
+                                 @Value("${app.profile-images.processing.max-in-flight-bytes:33554432}") int maxInFlightBytes,
+                                 @Value("${app.profile-images.processing.retry-after-seconds:2}") int retryAfterSeconds,
+                                 @Value("${app.profile-images.processing.tracked-jobs:10000}") int trackedJobs,
+                                 MeterRegistry meterRegistry) {
+        this.userProfileImageService = userProfileImageService;
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.byteBudget = new Semaphore(maxInFlightBytes);
+        this.jobs = new StripedLruMap<>(trackedJobs);
+        for (int i = 0; i < userLocks.length; i++) {
+            userLocks[i] = new ReentrantLock();
+        }
+
+        AtomicInteger threadIds = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "profile-image-" + threadIds.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.queueTimer = Timer.builder("profile.image.queue")
+                .description("Time an upload waited for a worker")
+                .register(meterRegistry);
+        this.processingTimer = Timer.builder("profile.image.processing")
+                .description("Time spent decoding, resizing and saving an upload")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("profile.image.rejected")
+                .description("Uploads refused because the queue or byte budget was full")
+                .register(meterRegistry);
+        Gauge.builder("profile.image.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Uploads waiting for a worker")
+                .register(meterRegistry);
+        Gauge.builder("profile.image.in-flight.bytes", byteBudget, budget -> maxInFlightBytes - budget.availablePermits())
+                .description("Upload bytes accepted and not yet processed")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Accepts an upload for processing and returns its queued job.
+     *
+     * @throws ProfileImageProcessingBusyException when the byte budget or queue is exhausted
+     */
+    public ProfileImageJobStatus submit(Long userId, MultipartFile file) throws IOException {
+        long size = file.getSize();
+        if (size > maxInFlightBytes) {
+            throw new ProfileImageRejectedException("Image file is too large");
+        }
+        int permits = (int) size;
+        if (!byteBudget.tryAcquire(permits)) {
+            rejected.increment();
+            throw new ProfileImageProcessingBusyException(retryAfterSeconds);
+        }
+
+        try {
+            byte[] upload = file.getBytes();
+            ProfileImageJobStatus job = ProfileImageJobStatus.queued(UUID.randomUUID().toString());
+            ProfileImageJobStatus previous = jobs.get(userId);
+            jobs.compute(userId, (id, current) -> job);
+
+            long submittedAt = System.nanoTime();
+            try {
+                executor.execute(() -> process(userId, job.getJobId(), upload, permits, submittedAt));
+            } catch (RejectedExecutionException e) {
+                jobs.compute(userId, (id, current) -> current == job ? previous : current);
+                rejected.increment();
+                throw new ProfileImageProcessingBusyException(retryAfterSeconds);
+            }
+            return job;
+        } catch (IOException | RuntimeException e) {
+            byteBudget.release(permits);
+            throw e;
+        }
+    }
+
+    /**
+     * The user's latest job, if one is still tracked.
+     */
+    public ProfileImageJobStatus getStatus(Long userId) {
+        return jobs.get(userId);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private void process(Long userId, String jobId, byte[] upload, int permits, long submittedAt) {
+        long startedAt = System.nanoTime();
+        queueTimer.record(startedAt - submittedAt, TimeUnit.NANOSECONDS);
+        ReentrantLock userLock = userLocks[Math.floorMod(Long.hashCode(userId), userLocks.length)];
+        userLock.lock();
+        try {
+            // Checked under the user's lock: a newer upload either already saved or saves after this one
+            if (!transition(userId, jobId, ProfileImageJobStatus::processing)) {
+                return; // superseded by a newer upload
+            }
+            LocalDateTime updatedOn = userProfileImageService.saveCompressedImage(userId, upload);
+            String imageUrl = UserProfileImageService.profileImageUrl(userId, updatedOn);
+            transition(userId, jobId, job -> job.done(imageUrl));
+        } catch (ProfileImageRejectedException e) {
+            transition(userId, jobId, job -> job.failed(e.getMessage()));
+        } catch (IOException e) {
+            transition(userId, jobId, job -> job.failed("Invalid image file"));
+        } catch (RuntimeException e) {
+            logger.warn("Profile image processing failed for user {}", userId, e);
+            transition(userId, jobId, job -> job.failed("Failed to process profile image"));
+        } finally {
+            userLock.unlock();
+            byteBudget.release(permits);
+            processingTimer.record(System.nanoTime() - startedAt, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Applies the change only while jobId is still the user's latest job
+    private boolean transition(Long userId, String jobId, UnaryOperator<ProfileImageJobStatus> change) {
+        boolean[] applied = new boolean[1];
+        jobs.compute(userId, (id, current) -> {
+            if (current == null || !current.getJobId().equals(jobId)) {
+                return current;
+            }
+            applied[0] = true;
+            return change.apply(current);
+        });
+        return applied[0];
+    }
+}
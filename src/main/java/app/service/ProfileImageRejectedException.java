@@ -0,0 +1,11 @@
+package app.service;
+
+/**
+ * Thrown when an uploaded profile image is unreadable or too large to decode.
+ */
+public class ProfileImageRejectedException extends RuntimeException {
+
+    public ProfileImageRejectedException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,21 @@
+package app.service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Scales a decoded upload to fit a square avatar size, keeping its aspect ratio.
+ * Selected with app.profile-images.resize.engine.
+ */
+public interface ProfileImageResizer {
+
+    /**
+     * Converts the source once per upload, before it is resized to every size
+     * in parallel. The result must not be modified afterwards.
+     */
+    default BufferedImage prepare(BufferedImage source) {
+        return source;
+    }
+
+    BufferedImage resize(BufferedImage source, int size) throws IOException;
+}
@@ -0,0 +1,62 @@
+package app.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Optional;
+
+/**
+ * Where profile image bytes live, addressed by content hash. {@link UserProfileImageService}
+ * writes through the active store and reads from it, falling back to the BLOB
+ * column of profile_image_blobs.
+ */
+public interface ProfileImageStore {
+
+    /**
+     * Stores the image. Returns its content key, or null when the bytes stay in
+     * the blob row's BLOB column.
+     */
+    String write(byte[] data) throws IOException;
+
+    /**
+     * The image with that content hash, if this store holds it.
+     */
+    Optional<StoredImage> read(String contentKey) throws IOException;
+
+    /**
+     * Called by the orphan sweep while it deletes the blob row, so an upload of
+     * the same image waits and writes it again.
+     */
+    void release(String contentKey) throws IOException;
+
+    /**
+     * SHA-256 of the encoded image in lower-case hex, the key of profile_image_blobs.
+     */
+    static String contentHash(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Either in-memory bytes or a file that can be sent without copying through the heap.
+     */
+    record StoredImage(byte[] bytes, Path file, long length) {
+
+        public static StoredImage ofBytes(byte[] bytes) {
+            return new StoredImage(bytes, null, bytes.length);
+        }
+
+        public static StoredImage ofFile(Path file, long length) {
+            return new StoredImage(null, file, length);
+        }
+
+        public boolean isFile() {
+            return file != null;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package app.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Produces every configured avatar size from one decoded upload.
+ *
+ * Each size is resized and encoded as a progressive JPEG on its own task in a
+ * dedicated ForkJoinPool, so an upload costs roughly the time of its largest
+ * size rather than the sum of all of them. Reads pick the smallest stored size
+ * that still covers the requested one. Resizing goes through the engine set
+ * by app.profile-images.resize.engine: "thumbnailator" or "area-average".
+ */
+@Component
+public class ProfileImageVariantGenerator {
+
+    private static final float QUALITY = 0.8f;
+
+    private final int[] sizes;
+    private final int defaultSize;
+    private final ProfileImageResizer resizer;
+    private final ForkJoinPool pool;
+
+    public ProfileImageVariantGenerator(@Value("${app.profile-images.variants.sizes:32,64,120,240}") int[] sizes,
+                                        @Value("${app.profile-images.variants.default-size:120}") int defaultSize,
+                                        @Value("${app.profile-images.variants.parallelism:0}") int parallelism,
+                                        @Value("${app.profile-images.resize.engine:thumbnailator}") String engine) {
+        int[] sorted = Arrays.stream(sizes).filter(size -> size > 0).distinct().sorted().toArray();
+        if (Arrays.binarySearch(sorted, defaultSize) < 0) {
+            throw new IllegalStateException("app.profile-images.variants.sizes must contain the default size " + defaultSize);
+        }
+        this.sizes = sorted;
+        this.defaultSize = defaultSize;
+        this.resizer = switch (engine) {
+            case "thumbnailator" -> new ThumbnailatorResizer();
+            case "area-average" -> new AreaAverageResizer(new ThumbnailatorResizer());
+            default -> throw new IllegalStateException("Unknown app.profile-images.resize.engine " + engine);
+        };
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    public int defaultSize() {
+        return defaultSize;
+    }
+
+    public int largestSize() {
+        return sizes[sizes.length - 1];
+    }
+
+    /**
+     * Smallest configured size at least as large as the request (the largest
+     * one if none is), or the default size when nothing was requested.
+     */
+    public int nearest(Integer requested) {
+        if (requested == null || requested <= 0) {
+            return defaultSize;
+        }
+        for (int size : sizes) {
+            if (size >= requested) {
+                return size;
+            }
+        }
+        return largestSize();
+    }
+
+    /**
+     * Encodes the image at every configured size, in parallel. Keys are in ascending size order.
+     */
+    public Map<Integer, byte[]> generate(BufferedImage source) throws IOException {
+        BufferedImage prepared = resizer.prepare(source);
+        List<Callable<byte[]>> tasks = new ArrayList<>(sizes.length);
+        for (int size : sizes) {
+            tasks.add(() -> encode(resizer.resize(prepared, size)));
+        }
+
+        List<Future<byte[]>> results = pool.invokeAll(tasks);
+        Map<Integer, byte[]> variants = new LinkedHashMap<>();
+        for (int i = 0; i < sizes.length; i++) {
+            variants.put(sizes[i], await(results.get(i)));
+        }
+        return variants;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    private static byte[] await(Future<byte[]> result) throws IOException {
+        try {
+            return result.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while encoding profile image", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException ioException) {
+                throw ioException;
+            }
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new IOException("Profile image encoding failed", e.getCause());
+        }
+    }
+
+    private static byte[] encode(BufferedImage resized) throws IOException {
+        // JPEG has no alpha: flatten onto white instead of letting transparent pixels turn black
+        BufferedImage rgb = resized;
+        if (resized.getType() != BufferedImage.TYPE_INT_RGB) {
+            rgb = new BufferedImage(resized.getWidth(), resized.getHeight(), BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = rgb.createGraphics();
+            g.drawImage(resized, 0, 0, Color.WHITE, null);
+            g.dispose();
+        }
+
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(out)) {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(QUALITY);
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+            writer.setOutput(output);
+            writer.write(null, new IIOImage(rgb, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,17 @@
+package app.service;
+
+import net.coobird.thumbnailator.Thumbnails;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+
+/**
+ * Resizes with Thumbnailator and Java2D.
+ */
+public class ThumbnailatorResizer implements ProfileImageResizer {
+
+    @Override
+    public BufferedImage resize(BufferedImage source, int size) throws IOException {
+        return Thumbnails.of(source).size(size, size).asBufferedImage();
+    }
+}
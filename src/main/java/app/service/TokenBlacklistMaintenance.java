@@ -0,0 +1,120 @@
+package app.service;
+
+import app.model.TokenBlacklist;
+import app.repository.TokenBlacklistRepository;
+import app.security.TokenRevocationIndex;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Periodically removes expired rows from token_blacklist.
+ *
+ * Deletes run in bounded chunks, each in its own short transaction, so a purge
+ * never holds long locks or builds a large undo log. In "buckets" mode, hour
+ * buckets that lie entirely in the past are emptied through the expiry_bucket
+ * index first; the current bucket is then trimmed by expires_at.
+ */
+@Service
+public class TokenBlacklistMaintenance {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenBlacklistMaintenance.class);
+
+    private final TokenBlacklistRepository tokenBlacklistRepository;
+    private final TokenRevocationIndex tokenRevocationIndex;
+
+    @Value("${app.blacklist.purge.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${app.blacklist.purge.max-batches:100}")
+    private int maxBatchesPerRun;
+
+    @Value("${app.blacklist.purge.mode:buckets}")
+    private String mode;
+
+    private final Counter rowsRemoved;
+    private final Timer purgeTimer;
+    private final AtomicLong lagSeconds = new AtomicLong();
+
+    public TokenBlacklistMaintenance(TokenBlacklistRepository tokenBlacklistRepository,
+                                     TokenRevocationIndex tokenRevocationIndex,
+                                     MeterRegistry meterRegistry) {
+        this.tokenBlacklistRepository = tokenBlacklistRepository;
+        this.tokenRevocationIndex = tokenRevocationIndex;
+        this.rowsRemoved = Counter.builder("token.blacklist.purge.rows")
+                .description("Expired token_blacklist rows deleted")
+                .register(meterRegistry);
+        this.purgeTimer = Timer.builder("token.blacklist.purge.duration")
+                .description("Time spent per purge run")
+                .register(meterRegistry);
+        Gauge.builder("token.blacklist.purge.lag", lagSeconds, AtomicLong::get)
+                .description("Seconds since the oldest row still in the table expired")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${app.blacklist.purge.interval-ms:60000}",
+               initialDelayString = "${app.blacklist.purge.interval-ms:60000}")
+    public void purgeExpired() {
+        Timer.Sample sample = Timer.start();
+        long removed = purge();
+        sample.stop(purgeTimer);
+        tokenRevocationIndex.pruneExpired();
+        updateLag();
+
+        if (removed > 0) {
+            logger.debug("Purged {} expired token_blacklist rows", removed);
+        }
+    }
+
+    private long purge() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        int budget = maxBatchesPerRun;
+        long removed = 0;
+
+        if ("buckets".equalsIgnoreCase(mode)) {
+            int currentBucket = TokenBlacklist.bucketOf(now);
+            Integer bucket = tokenBlacklistRepository.findOldestBucket().orElse(null);
+            while (bucket != null && bucket < currentBucket && budget > 0) {
+                int deleted = tokenBlacklistRepository.deleteBucketBatch(bucket, batchSize);
+                rowsRemoved.increment(deleted);
+                removed += deleted;
+                budget--;
+                if (deleted < batchSize) {
+                    bucket = tokenBlacklistRepository.findOldestBucket().orElse(null);
+                }
+            }
+        }
+
+        while (budget > 0) {
+            int deleted = tokenBlacklistRepository.deleteExpiredBatch(now, batchSize);
+            rowsRemoved.increment(deleted);
+            removed += deleted;
+            budget--;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        return removed;
+    }
+
+    private void updateLag() {
+        LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+        long lag = tokenBlacklistRepository.findOldestExpiry()
+                .filter(oldest -> oldest.isBefore(now))
+                .map(oldest -> Duration.between(oldest, now).toSeconds())
+                .orElse(0L);
+        lagSeconds.set(lag);
+    }
+}
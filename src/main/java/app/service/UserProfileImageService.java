@@ -1,68 +1,358 @@
 package app.service;
 
-import net.coobird.thumbnailator.Thumbnails;
 import java.awt.image.BufferedImage;
-import javax.imageio.ImageIO;
-import java.io.ByteArrayOutputStream;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
-import org.springframework.web.multipart.MultipartFile;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import app.model.User;
-import app.model.UserProfileImage;
+import app.model.UserProfileImageSize;
+import app.repository.ProfileImageBlobRepository;
+import app.repository.ProfileImageBlobRepositoryCustom.NewBlob;
 import app.repository.UserProfileImageRepository;
+import app.repository.UserProfileImageSizeRepository;
+import app.repository.UserProfileImageSizeRepositoryCustom.Row;
+import app.repository.UserRepository;
+import app.service.ProfileImageStore.StoredImage;
 
 @Service
 public class UserProfileImageService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserProfileImageService.class);
+
     private final UserProfileImageRepository repository;
+    private final UserProfileImageSizeRepository sizeRepository;
+    private final ProfileImageBlobRepository blobRepository;
+    private final UserRepository userRepository;
+    private final ProfileImageDecoder decoder;
+    private final ProfileImageVariantGenerator variantGenerator;
+    private final AvatarCache avatarCache;
+    private final InitialsAvatarRenderer initialsRenderer;
+    private final DatabaseProfileImageStore databaseStore;
+    // Active store for new images; the database store unless app.profile-images.store=fs
+    private final ProfileImageStore store;
+    private final TransactionTemplate transactionTemplate;
 
-    public UserProfileImageService(UserProfileImageRepository repository) {
+    public UserProfileImageService(UserProfileImageRepository repository,
+                                   UserProfileImageSizeRepository sizeRepository,
+                                   ProfileImageBlobRepository blobRepository,
+                                   UserRepository userRepository,
+                                   ProfileImageDecoder decoder,
+                                   ProfileImageVariantGenerator variantGenerator,
+                                   AvatarCache avatarCache,
+                                   InitialsAvatarRenderer initialsRenderer,
+                                   DatabaseProfileImageStore databaseStore,
+                                   Optional<FileSystemProfileImageStore> fileSystemStore,
+                                   PlatformTransactionManager transactionManager) {
         this.repository = repository;
+        this.sizeRepository = sizeRepository;
+        this.blobRepository = blobRepository;
+        this.userRepository = userRepository;
+        this.decoder = decoder;
+        this.variantGenerator = variantGenerator;
+        this.avatarCache = avatarCache;
+        this.initialsRenderer = initialsRenderer;
+        this.databaseStore = databaseStore;
+        this.store = fileSystemStore.<ProfileImageStore>map(fs -> fs).orElse(databaseStore);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     /**
-     * Save or update compressed profile image for a user.
+     * Save or update the profile image of a user from the uploaded bytes, at every
+     * configured size, and return its new version timestamp.
+     *
+     * Each encoded size is stored once per content hash: blobs that already exist
+     * are only referenced again. Decoding and encoding run before the transaction;
+     * the previous image is never read and stays served until it commits.
      */
-    public String saveCompressedImage(User user, MultipartFile file) throws IOException {
-        BufferedImage originalImage = ImageIO.read(file.getInputStream());
-
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        Thumbnails.of(originalImage)
-                .size(120, 120)
-                .outputQuality(0.8)
-                .outputFormat("jpg")
-                .toOutputStream(baos);
+    public LocalDateTime saveCompressedImage(Long userId, byte[] upload) throws IOException {
+        BufferedImage originalImage = decoder.decode(new ByteArrayInputStream(upload), variantGenerator.largestSize());
+        Map<Integer, byte[]> variants = variantGenerator.generate(originalImage);
 
-        byte[] compressedData = baos.toByteArray();
+        List<Row> rows = new ArrayList<>();
+        Map<String, byte[]> blobs = new LinkedHashMap<>(); // small images can encode identically at two sizes
+        for (Map.Entry<Integer, byte[]> variant : variants.entrySet()) {
+            String hash = ProfileImageStore.contentHash(variant.getValue());
+            rows.add(new Row(variant.getKey(), hash));
+            blobs.putIfAbsent(hash, variant.getValue());
+        }
+        boolean bytesInDatabase = store == databaseStore;
+        List<NewBlob> newBlobs = blobs.entrySet().stream()
+                .map(blob -> new NewBlob(blob.getKey(), blob.getValue().length, bytesInDatabase ? blob.getValue() : null))
+                .toList();
 
-        Optional<UserProfileImage> existing = repository.findByUserId(user.getId());
-        UserProfileImage profileImage = existing.orElseGet(UserProfileImage::new);
+        byte[] defaultImage = variants.get(variantGenerator.defaultSize());
+        String defaultHash = ProfileImageStore.contentHash(defaultImage);
+        Set<Integer> sizes = variants.keySet();
+        // Same value and precision as the column, so the returned version matches later reads
+        LocalDateTime updatedOn = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
 
-        profileImage.setUser(user);
-        profileImage.setImageData(compressedData);
+        inTransaction(() -> {
+            List<UserProfileImageSize> previous = sizeRepository.findByUserIdForUpdate(userId);
+            blobRepository.insertMissing(newBlobs);
+            if (!bytesInDatabase) {
+                // Under the blob row locks, so the orphan sweep cannot remove a file being re-referenced
+                for (byte[] bytes : blobs.values()) {
+                    store.write(bytes);
+                }
+            }
+            repository.upsert(userId, defaultHash, defaultImage.length, updatedOn);
+            sizeRepository.upsertAll(userId, rows);
 
-        UserProfileImage savedImage = repository.save(profileImage);
-
-        return Base64.getEncoder().encodeToString(savedImage.getImageData());
+            Map<String, Integer> references = new HashMap<>();
+            previous.stream()
+                    .filter(pointer -> sizes.contains(pointer.getId().getSize())) // the others are left as they are
+                    .forEach(pointer -> references.merge(pointer.getContentHash(), -1, Integer::sum));
+            rows.forEach(row -> references.merge(row.contentHash(), 1, Integer::sum));
+            adjustReferences(references, updatedOn);
+            avatarCache.invalidate(userId);
+        });
+        return updatedOn;
     }
 
     /**
      * Get Base64-encoded profile image for a user.
      */
     public String getBase64Image(Long userId) {
-        return repository.findByUserId(userId)
-                .map(img -> Base64.getEncoder().encodeToString(img.getImageData()))
+        String hash = avatarCache.hashOf(userId);
+        if (hash == null) {
+            hash = repository.findRefByUserId(userId)
+                    .map(UserProfileImageRepository.ImageRef::getContentHash)
+                    .orElse(null);
+            if (hash == null) {
+                return null;
+            }
+            avatarCache.putHash(userId, hash);
+        }
+        try {
+            StoredImage image = openImage(hash).orElse(null);
+            if (image == null) {
+                return null;
+            }
+            byte[] bytes = readBytes(image);
+            if (image.isFile()) {
+                avatarCache.put(hash, bytes);
+            }
+            return Base64.getEncoder().encodeToString(bytes);
+        } catch (IOException e) {
+            logger.warn("Could not read profile image of user {}", userId, e);
+            return null;
+        }
+    }
+
+    /**
+     * Last modification of the user's image, read without loading the image itself.
+     */
+    public Optional<LocalDateTime> getImageUpdatedOn(Long userId) {
+        return repository.findRefByUserId(userId).map(UserProfileImageRepository.ImageRef::getUpdatedOn);
+    }
+
+    /**
+     * Version and content hash of the user's image at the stored size nearest to
+     * {@code requestedSize}, without loading it. Falls back to the default size
+     * for images uploaded before the requested size existed.
+     */
+    public Optional<ImageVersion> findImage(Long userId, Integer requestedSize) {
+        UserProfileImageRepository.ImageRef ref = repository.findRefByUserId(userId).orElse(null);
+        if (ref == null) {
+            return Optional.empty();
+        }
+        int size = variantGenerator.nearest(requestedSize);
+        if (size != variantGenerator.defaultSize()) {
+            Optional<String> hash = sizeRepository.findContentHash(userId, size);
+            if (hash.isPresent()) {
+                return Optional.of(new ImageVersion(ref.getUpdatedOn(), hash.get(), size));
+            }
+        }
+        return Optional.of(new ImageVersion(ref.getUpdatedOn(), ref.getContentHash(), variantGenerator.defaultSize()));
+    }
+
+    /**
+     * The image with that content hash from the avatar cache or the store that
+     * holds it, falling back to the BLOB column. Images read as bytes are cached;
+     * files are left to sendfile.
+     */
+    public Optional<StoredImage> openImage(String contentHash) throws IOException {
+        byte[] cached = avatarCache.get(contentHash);
+        if (cached != null) {
+            return Optional.of(StoredImage.ofBytes(cached));
+        }
+        if (store != databaseStore) {
+            Optional<StoredImage> image = store.read(contentHash);
+            if (image.isPresent()) {
+                return image;
+            }
+        }
+        Optional<StoredImage> blob = databaseStore.read(contentHash);
+        blob.ifPresent(image -> avatarCache.put(contentHash, image.bytes()));
+        return blob;
+    }
+
+    /**
+     * Versioned image URL for API responses, or null if the user has no image.
+     */
+    public String getProfileImageUrl(Long userId) {
+        return getImageUpdatedOn(userId)
+                .map(updatedOn -> profileImageUrl(userId, updatedOn))
                 .orElse(null);
     }
 
     /**
-     * Delete profile image for a user.
+     * Versioned URL of the initials avatar served when the user has no image;
+     * it changes with the user's initials.
+     */
+    public String getInitialsAvatarUrl(Long userId, String name) {
+        return "/api/user/" + userId + "/profile-image?v=" + initialsRenderer.version(userId, name);
+    }
+
+    /**
+     * Initials avatar for a user without an uploaded image, at the stored size
+     * nearest to {@code requestedSize}; empty if the user does not exist.
+     */
+    public Optional<InitialsAvatar> findInitialsAvatar(Long userId, Integer requestedSize) {
+        int size = variantGenerator.nearest(requestedSize);
+        return userRepository.findNameById(userId)
+                .map(name -> new InitialsAvatar(initialsRenderer.version(userId, name),
+                        initialsRenderer.render(userId, name, size)));
+    }
+
+    public static String profileImageUrl(Long userId, LocalDateTime updatedOn) {
+        return "/api/user/" + userId + "/profile-image?v=" + versionOf(updatedOn);
+    }
+
+    // Changes whenever the image is replaced; used as the URL version
+    public static String versionOf(LocalDateTime updatedOn) {
+        return updatedOn != null ? Long.toString(updatedOn.toInstant(ZoneOffset.UTC).toEpochMilli(), 36) : "0";
+    }
+
+    /**
+     * Delete profile image for a user, by user ID and without loading it.
+     * Blobs no longer referenced are left to the orphan sweep.
      */
     public void deleteProfileImage(Long userId) {
-        repository.findByUserId(userId).ifPresent(repository::delete);
+        transactionTemplate.executeWithoutResult(status -> {
+            List<UserProfileImageSize> previous = sizeRepository.findByUserIdForUpdate(userId);
+            sizeRepository.deleteByUserIdInBulk(userId);
+            repository.deleteByUserIdInBulk(userId);
+
+            Map<String, Integer> references = new HashMap<>();
+            previous.forEach(pointer -> references.merge(pointer.getContentHash(), -1, Integer::sum));
+            adjustReferences(references, LocalDateTime.now());
+            avatarCache.invalidate(userId);
+        });
+    }
+
+    /**
+     * Moves up to {@code batchSize} BLOBs into the active store; returns how many were moved.
+     */
+    @Transactional(rollbackFor = IOException.class)
+    public int migrateBatch(int batchSize) throws IOException {
+        if (store == databaseStore) {
+            return 0;
+        }
+        List<String> hashes = blobRepository.findHashesWithData(PageRequest.of(0, batchSize));
+        for (String hash : hashes) {
+            byte[] bytes = blobRepository.findImageData(hash).orElse(null);
+            if (bytes != null) {
+                store.write(bytes);
+                blobRepository.clearImageData(hash);
+            }
+        }
+        return hashes.size();
+    }
+
+    /**
+     * Deletes up to {@code batchSize} blobs that have been unreferenced for longer
+     * than {@code grace}, each in its own short transaction; returns how many went.
+     */
+    public int collectOrphans(int batchSize, Duration grace) {
+        LocalDateTime cutoff = LocalDateTime.now().minus(grace);
+        int removed = 0;
+        for (String hash : blobRepository.findOrphans(cutoff, PageRequest.of(0, batchSize))) {
+            try {
+                Boolean deleted = transactionTemplate.execute(status -> {
+                    if (blobRepository.deleteIfOrphaned(hash, cutoff) == 0) {
+                        return false; // referenced again since it was listed
+                    }
+                    try {
+                        store.release(hash); // before commit: a concurrent upload waits on the row lock
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    return true;
+                });
+                if (Boolean.TRUE.equals(deleted)) {
+                    removed++;
+                }
+            } catch (UncheckedIOException e) {
+                logger.warn("Could not release orphaned profile image {}; will retry", hash, e.getCause());
+            }
+        }
+        return removed;
+    }
+
+    // Adds each hash's delta to its blob's reference count, one statement per distinct delta
+    private void adjustReferences(Map<String, Integer> references, LocalDateTime now) {
+        Map<Integer, List<String>> byDelta = new TreeMap<>();
+        references.forEach((hash, delta) -> {
+            if (delta != 0) {
+                byDelta.computeIfAbsent(delta, d -> new ArrayList<>()).add(hash);
+            }
+        });
+        byDelta.forEach((delta, hashes) -> blobRepository.adjustRefCount(hashes, delta, now));
+    }
+
+    private void inTransaction(IoWork work) throws IOException {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try {
+                    work.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private byte[] readBytes(StoredImage image) throws IOException {
+        return image.isFile() ? Files.readAllBytes(image.file()) : image.bytes();
+    }
+
+    @FunctionalInterface
+    private interface IoWork {
+        void run() throws IOException;
+    }
+
+    /**
+     * What the image endpoint needs to answer without reading the image: the
+     * version for the URL and the content hash for the ETag.
+     */
+    public record ImageVersion(LocalDateTime updatedOn, String contentHash, int size) {
+    }
+
+    public record InitialsAvatar(String version, InitialsAvatarRenderer.Rendering rendering) {
     }
 }
@@ -5,6 +5,8 @@ import app.dto.UpdateUserRequest;
 import app.model.User;
 import app.repository.UserRepository;
 import app.security.CustomUserDetails;
+import app.security.PrincipalCache;
+import app.security.TokenVersionRegistry;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
@@ -17,10 +19,17 @@ public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TokenVersionRegistry tokenVersionRegistry;
+    private final PrincipalCache principalCache;
 
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository,
+                           PasswordEncoder passwordEncoder,
+                           TokenVersionRegistry tokenVersionRegistry,
+                           PrincipalCache principalCache) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.tokenVersionRegistry = tokenVersionRegistry;
+        this.principalCache = principalCache;
     }
 
     @Override
@@ -36,6 +45,7 @@ public class UserServiceImpl implements UserService {
         if (updateRequest.getEmail() != null) {
             user.setEmail(updateRequest.getEmail());
         }
+        bumpTokenVersion(user);
 
         return userRepository.save(user);
     }
@@ -69,7 +79,15 @@ public class UserServiceImpl implements UserService {
 
         // Update to new password
         user.setPassword(passwordEncoder.encode(passwordRequest.getNewPassword()));
+        bumpTokenVersion(user);
         userRepository.save(user);
     }
+
+    // Invalidates claims-only access tokens and the cached principal
+    private void bumpTokenVersion(User user) {
+        user.setTokenVersion(user.getTokenVersion() + 1);
+        tokenVersionRegistry.publish(user.getId(), user.getTokenVersion());
+        principalCache.invalidate(user.getId());
+    }
 }
     
\ No newline at end of file
@@ -0,0 +1,45 @@
+package app.service;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * {@link AreaAverageResizer.RowKernel} on jdk.incubator.vector: unpacks a lane
+ * of RGB ints into three float vectors and adds them with one fused
+ * multiply-add each. Only loaded after the module is known to be present.
+ */
+final class VectorRowKernel implements AreaAverageResizer.RowKernel {
+
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    // Same bit size as INTS, so both have the same number of lanes
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public void accumulate(int[] pixels, int offset, int width, float weight,
+                           float[] red, float[] green, float[] blue) {
+        FloatVector w = FloatVector.broadcast(FLOATS, weight);
+        int bound = INTS.loopBound(width);
+        int x = 0;
+        for (; x < bound; x += INTS.length()) {
+            IntVector p = IntVector.fromArray(INTS, pixels, offset + x);
+            channel(p.lanewise(VectorOperators.LSHR, 16).and(0xff)).fma(w, FloatVector.fromArray(FLOATS, red, x))
+                    .intoArray(red, x);
+            channel(p.lanewise(VectorOperators.LSHR, 8).and(0xff)).fma(w, FloatVector.fromArray(FLOATS, green, x))
+                    .intoArray(green, x);
+            channel(p.and(0xff)).fma(w, FloatVector.fromArray(FLOATS, blue, x))
+                    .intoArray(blue, x);
+        }
+        AreaAverageResizer.accumulateScalar(pixels, offset, x, width, weight, red, green, blue);
+    }
+
+    @Override
+    public String toString() {
+        return INTS.length() + " lanes";
+    }
+
+    private static FloatVector channel(IntVector values) {
+        return (FloatVector) values.convert(VectorOperators.I2F, 0);
+    }
+}
@@ -0,0 +1,245 @@
+package app.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConcurrentLongCacheTests {
+
+    @Test
+    void putGetAndReplace() {
+        ConcurrentLongCache<String> cache = new ConcurrentLongCache<>(1_000, 0);
+
+        cache.put(1L, "one");
+        cache.put(-7L, "minus seven");
+        assertEquals("one", cache.get(1L));
+        assertEquals("minus seven", cache.get(-7L));
+        assertNull(cache.get(2L));
+
+        cache.put(1L, "uno");
+        assertEquals("uno", cache.get(1L));
+        assertEquals(2, cache.size());
+        assertEquals(3, cache.hitCount());
+        assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    void removeKeepsCollidingKeysReachable() {
+        // Fills one stripe to its 64-entry limit (half its slots), so probe chains form
+        ConcurrentLongCache<Long> cache = new ConcurrentLongCache<>(16 * 64, 0);
+        List<Long> keys = keysInStripe(0, 64);
+        for (long key : keys) {
+            cache.put(key, key);
+        }
+
+        for (int i = 0; i < keys.size(); i += 2) {
+            cache.invalidate(keys.get(i));
+        }
+
+        for (int i = 0; i < keys.size(); i++) {
+            Long key = keys.get(i);
+            assertEquals(i % 2 == 0 ? null : key, cache.get(key));
+        }
+        assertEquals(32, cache.size());
+        assertEquals(0, cache.evictionCount());
+    }
+
+    @Test
+    void matchesAHashMapUnderRandomPutsAndRemoves() {
+        ConcurrentLongCache<Integer> cache = new ConcurrentLongCache<>(16 * 512, 0);
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(42);
+
+        for (int op = 0; op < 200_000; op++) {
+            long key = random.nextInt(4_000);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    cache.put(key, op);
+                    expected.put(key, op);
+                }
+                case 1 -> {
+                    cache.invalidate(key);
+                    expected.remove(key);
+                }
+                default -> assertEquals(expected.get(key), cache.get(key));
+            }
+        }
+        // No stripe overflowed, so nothing was evicted and the contents match exactly
+        assertEquals(0, cache.evictionCount());
+        assertEquals(expected.size(), cache.size());
+        expected.forEach((key, value) -> assertEquals(value, cache.get(key)));
+    }
+
+    @Test
+    void evictsWhenAStripeIsFull() {
+        ConcurrentLongCache<Long> cache = new ConcurrentLongCache<>(16 * 4, 0);
+        for (long key = 0; key < 1_000; key++) {
+            cache.put(key, key);
+        }
+
+        assertTrue(cache.size() <= 64);
+        assertEquals(1_000 - cache.size(), cache.evictionCount());
+    }
+
+    @Test
+    void clockSweepKeepsRecentlyReadEntries() {
+        ConcurrentLongCache<Long> cache = new ConcurrentLongCache<>(16 * 2, 0);
+        List<Long> keys = keysInStripe(3, 3);
+        long read = keys.get(0);
+        long unread = keys.get(1);
+        long added = keys.get(2);
+
+        cache.put(read, read);
+        cache.put(unread, unread);
+        cache.get(read);
+        cache.put(added, added);
+
+        assertEquals(read, cache.get(read));
+        assertEquals(added, cache.get(added));
+        assertNull(cache.get(unread));
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void expiresEntriesAfterTheTtl() throws InterruptedException {
+        ConcurrentLongCache<String> cache = new ConcurrentLongCache<>(1_000, 1);
+        cache.put(1L, "one");
+
+        Thread.sleep(20);
+
+        assertNull(cache.get(1L));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void expiredEntriesAreEvictedFirst() throws InterruptedException {
+        ConcurrentLongCache<Long> cache = new ConcurrentLongCache<>(16 * 2, 1);
+        List<Long> keys = keysInStripe(5, 3);
+        cache.put(keys.get(0), 0L);
+        cache.put(keys.get(1), 1L);
+        cache.get(keys.get(0));
+        cache.get(keys.get(1));
+
+        Thread.sleep(20);
+        cache.put(keys.get(2), 2L);
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.evictionCount());
+    }
+
+    @Test
+    void getOrLoadLoadsOnceAndDoesNotCacheNull() {
+        ConcurrentLongCache<String> cache = new ConcurrentLongCache<>(1_000, 0);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertEquals("7", cache.getOrLoad(7L, key -> {
+            loads.incrementAndGet();
+            return Long.toString(key);
+        }));
+        assertEquals("7", cache.getOrLoad(7L, key -> {
+            loads.incrementAndGet();
+            return "reloaded";
+        }));
+        assertNull(cache.getOrLoad(8L, key -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+        assertNull(cache.getOrLoad(8L, key -> {
+            loads.incrementAndGet();
+            return null;
+        }));
+
+        assertEquals(3, loads.get());
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void getOrLoadDropsAValueLoadedAcrossAnInvalidation() {
+        ConcurrentLongCache<String> cache = new ConcurrentLongCache<>(1_000, 0);
+
+        // The commit lands and invalidates while the loader still holds the old row
+        assertEquals("stale", cache.getOrLoad(7L, key -> {
+            cache.invalidate(key);
+            return "stale";
+        }));
+        assertNull(cache.get(7L));
+        assertEquals("fresh", cache.getOrLoad(7L, key -> "fresh"));
+        assertEquals("fresh", cache.get(7L));
+
+        cache.invalidate(7L);
+        assertEquals("stale", cache.getOrLoad(7L, key -> {
+            cache.invalidateAll();
+            return "stale";
+        }));
+        assertNull(cache.get(7L));
+    }
+
+    @Test
+    void tracksWeightThroughPutReplaceAndRemove() {
+        ConcurrentLongCache<byte[]> cache = new ConcurrentLongCache<>(1_000, 0, 16 * 1_000, bytes -> bytes.length);
+        assertTrue(cache.isWeighted());
+
+        cache.put(1L, new byte[100]);
+        cache.put(2L, new byte[250]);
+        assertEquals(350, cache.weight());
+
+        cache.put(1L, new byte[100]);
+        assertEquals(350, cache.weight());
+        cache.put(1L, new byte[40]);
+        assertEquals(290, cache.weight());
+        assertEquals(40, cache.get(1L).length);
+
+        cache.invalidate(2L);
+        assertEquals(40, cache.weight());
+        cache.invalidateAll();
+        assertEquals(0, cache.weight());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void evictsToStayWithinTheStripeWeightBudget() {
+        ConcurrentLongCache<byte[]> cache = new ConcurrentLongCache<>(1_000, 0, 16 * 100, bytes -> bytes.length);
+        List<Long> keys = keysInStripe(7, 3);
+
+        cache.put(keys.get(0), new byte[60]);
+        cache.put(keys.get(1), new byte[60]);
+
+        assertNull(cache.get(keys.get(0)));
+        assertEquals(60, cache.weight());
+        assertEquals(1, cache.evictionCount());
+
+        cache.put(keys.get(2), new byte[101]);
+        assertNull(cache.get(keys.get(2)));
+        assertEquals(60, cache.weight());
+    }
+
+    @Test
+    void unweightedCacheReportsNoWeight() {
+        ConcurrentLongCache<String> cache = new ConcurrentLongCache<>(1_000, 0);
+        cache.put(1L, "one");
+
+        assertEquals(0, cache.weight());
+        assertFalse(cache.isWeighted());
+    }
+
+    // Keys that the cache places in the given stripe
+    private static List<Long> keysInStripe(int stripe, int count) {
+        List<Long> keys = new ArrayList<>();
+        for (long key = 0; keys.size() < count; key++) {
+            if ((int) (ConcurrentLongCache.mix(key) >>> 60) == stripe) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,145 @@
+package app.common;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class LongIntMapTests {
+
+    @Test
+    void putGetAndMissingValue() {
+        LongIntMap map = new LongIntMap();
+        map.put(1L, 10);
+        map.put(Long.MIN_VALUE, 20);
+
+        assertEquals(10, map.get(1L, -1));
+        assertEquals(20, map.get(Long.MIN_VALUE, -1));
+        assertEquals(-1, map.get(2L, -1));
+
+        map.put(1L, 5);
+        assertEquals(5, map.get(1L, -1));
+        assertEquals(2, map.size());
+    }
+
+    @Test
+    void putIfGreaterOnlyMovesForward() {
+        LongIntMap map = new LongIntMap();
+
+        assertEquals(3, map.putIfGreater(7L, 3));
+        assertEquals(3, map.putIfGreater(7L, 2));
+        assertEquals(3, map.putIfGreater(7L, 3));
+        assertEquals(9, map.putIfGreater(7L, 9));
+        assertEquals(9, map.get(7L, -1));
+    }
+
+    @Test
+    void growsPastTheInitialCapacity() {
+        LongIntMap map = new LongIntMap();
+        for (int i = 0; i < 100_000; i++) {
+            map.put(i * 31L, i);
+        }
+
+        assertEquals(100_000, map.size());
+        for (int i = 0; i < 100_000; i++) {
+            assertEquals(i, map.get(i * 31L, -1));
+        }
+        assertEquals(-1, map.get(1L, -1));
+    }
+
+    @Test
+    void removeKeepsProbeChainsIntact() {
+        LongIntMap map = new LongIntMap();
+        for (int i = 0; i < 10_000; i++) {
+            map.put(i, i);
+        }
+        for (int i = 0; i < 10_000; i += 3) {
+            map.remove(i);
+        }
+        map.remove(-5L); // absent
+
+        for (int i = 0; i < 10_000; i++) {
+            assertEquals(i % 3 == 0 ? -1 : i, map.get(i, -1));
+        }
+        assertEquals(10_000 - 3_334, map.size());
+    }
+
+    @Test
+    void matchesAHashMapUnderRandomOperations() {
+        LongIntMap map = new LongIntMap();
+        Map<Long, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+
+        for (int op = 0; op < 300_000; op++) {
+            long key = random.nextInt(5_000);
+            int value = random.nextInt(1_000);
+            switch (random.nextInt(4)) {
+                case 0 -> {
+                    map.put(key, value);
+                    expected.put(key, value);
+                }
+                case 1 -> assertEquals((int) expected.merge(key, value, Math::max), map.putIfGreater(key, value));
+                case 2 -> {
+                    map.remove(key);
+                    expected.remove(key);
+                }
+                default -> assertEquals((int) expected.getOrDefault(key, -1), map.get(key, -1));
+            }
+        }
+        assertEquals(expected.size(), map.size());
+    }
+
+    @Test
+    void optimisticReadsStayCorrectWhileWritersResizeAndRemove() throws InterruptedException {
+        LongIntMap map = new LongIntMap();
+        int stable = 2_000;
+        for (int i = 0; i < stable; i++) {
+            map.put(i, i);
+        }
+
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicReference<String> failure = new AtomicReference<>();
+
+        // Grows every stripe several times over and shrinks it again, so reads keep racing
+        // table swaps and backward shifts and fall back to the read lock when validation fails
+        Thread writer = new Thread(() -> {
+            for (int round = 0; round < 20; round++) {
+                for (long key = 1_000_000; key < 1_020_000; key++) {
+                    map.put(key, 1);
+                }
+                for (long key = 1_000_000; key < 1_020_000; key++) {
+                    map.remove(key);
+                }
+            }
+            running.set(false);
+        });
+        Thread reader = new Thread(() -> {
+            while (running.get() && failure.get() == null) {
+                for (int i = 0; i < stable; i++) {
+                    int value = map.get(i, -1);
+                    if (value != i) {
+                        failure.set("key " + i + " read as " + value);
+                        break;
+                    }
+                }
+                if (map.get(-1L, -1) != -1) {
+                    failure.set("absent key found");
+                }
+            }
+        });
+
+        writer.start();
+        reader.start();
+        writer.join();
+        reader.join();
+
+        assertNull(failure.get());
+        assertEquals(stable, map.size());
+    }
+}
@@ -0,0 +1,149 @@
+package app.config;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.stereotype.Controller;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+import org.springframework.web.servlet.config.annotation.PathMatchConfigurer;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * Deep-link page loads: the old forward to /index.html against the in-memory
+ * page served by {@link SpaFallbackResolver}.
+ *
+ * {@code forward} is the previous setup: the ant-pattern catch-all controller
+ * returns "forward:/index.html", and the forwarded request is then served from
+ * disk by an uncached /** resource handler, as Spring Boot's default one does.
+ * MockMvc does not follow forwards, so the benchmark issues the second dispatch
+ * itself. Neither side runs the security filters, which the real forward also
+ * passes through again, so the old path's cost is understated. The *Revalidate
+ * variants send the validator from the previous response, as a browser does
+ * with no-cache.
+ * <pre>
+ * mvn -Dexec.skip=true test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) app.config.DeepLinkBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class DeepLinkBenchmark {
+
+    private static final String DEEP_LINK = "/users/42/settings/security";
+
+    private Path root;
+    private AnnotationConfigWebApplicationContext forwardContext;
+    private AnnotationConfigWebApplicationContext inMemoryContext;
+    private MockMvc forwardMvc;
+    private MockMvc inMemoryMvc;
+    private String lastModified;
+    private String etag;
+
+    @EnableWebMvc
+    @Configuration
+    @Import(LegacyHomeController.class)
+    static class ForwardConfig implements WebMvcConfigurer {
+        @Override
+        @SuppressWarnings("removal")
+        public void configurePathMatch(PathMatchConfigurer configurer) {
+            configurer.setPathMatcher(new AntPathMatcher()); // the old ant_path_matcher setting
+        }
+
+        @Override
+        public void addResourceHandlers(ResourceHandlerRegistry registry) {
+            registry.addResourceHandler("/**").addResourceLocations("classpath:/static/");
+        }
+    }
+
+    @Controller
+    static class LegacyHomeController {
+        @RequestMapping({"/{path:[^\\.]*}", "/**/{path:[^\\.]*}"})
+        public String forward() {
+            return "forward:/index.html";
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        root = Files.createTempDirectory("deep-link-benchmark");
+        forwardContext = SpaFallbackResolverTests.context(root, ForwardConfig.class);
+        inMemoryContext = SpaFallbackResolverTests.context(root, SpaFallbackResolverTests.WebConfig.class);
+        forwardMvc = MockMvcBuilders.webAppContextSetup(forwardContext).build();
+        inMemoryMvc = MockMvcBuilders.webAppContextSetup(inMemoryContext).build();
+
+        lastModified = forwardMvc.perform(get("/index.html")).andReturn().getResponse().getHeader("Last-Modified");
+        etag = inMemoryMvc.perform(get(DEEP_LINK)).andReturn().getResponse().getHeader("ETag");
+        if (!"/index.html".equals(forwardMvc.perform(get(DEEP_LINK)).andReturn().getResponse().getForwardedUrl())) {
+            throw new IllegalStateException("legacy controller did not forward");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        forwardContext.close();
+        inMemoryContext.close();
+        try (var files = Files.walk(root)) {
+            files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int forward() throws Exception {
+        String target = forwardMvc.perform(get(DEEP_LINK)).andReturn().getResponse().getForwardedUrl();
+        return forwardMvc.perform(get(target)).andReturn().getResponse().getContentAsByteArray().length;
+    }
+
+    @Benchmark
+    public int forwardRevalidate() throws Exception {
+        String target = forwardMvc.perform(get(DEEP_LINK).header("If-Modified-Since", lastModified))
+                .andReturn().getResponse().getForwardedUrl();
+        return forwardMvc.perform(get(target).header("If-Modified-Since", lastModified))
+                .andReturn().getResponse().getStatus();
+    }
+
+    @Benchmark
+    public int inMemory() throws Exception {
+        return inMemoryMvc.perform(get(DEEP_LINK)).andReturn().getResponse().getContentAsByteArray().length;
+    }
+
+    @Benchmark
+    public int inMemoryRevalidate() throws Exception {
+        return inMemoryMvc.perform(get(DEEP_LINK).header("If-None-Match", etag)).andReturn().getResponse().getStatus();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(DeepLinkBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,176 @@
+package app.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.io.ByteArrayInputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class SpaFallbackResolverTests {
+
+    static final String INDEX = "<!doctype html><html><head><title>App</title></head><body>"
+            + "<div id=\"root\"></div>".repeat(20) + "</body></html>";
+
+    @TempDir
+    Path root;
+
+    private AnnotationConfigWebApplicationContext context;
+    private MockMvc mvc;
+
+    @EnableWebMvc
+    @Configuration
+    @Import({StaticResourceConfig.class, PingController.class})
+    static class WebConfig {
+    }
+
+    @RestController
+    static class PingController {
+        @GetMapping("/api/ping")
+        String ping() {
+            return "pong";
+        }
+    }
+
+    @BeforeEach
+    void setUp() throws Exception {
+        context = context(root, WebConfig.class);
+        mvc = MockMvcBuilders.webAppContextSetup(context).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        context.close();
+    }
+
+    /**
+     * Web MVC context over the given configuration, with classpath:/static/ served from {@code root}/static.
+     */
+    static AnnotationConfigWebApplicationContext context(Path root, Class<?> config) throws Exception {
+        Path staticDir = Files.createDirectories(root.resolve("static"));
+        Files.writeString(staticDir.resolve("index.html"), INDEX);
+        Files.writeString(staticDir.resolve("app.js"), "console.log(1)");
+
+        AnnotationConfigWebApplicationContext context = new AnnotationConfigWebApplicationContext();
+        context.setClassLoader(new URLClassLoader(new URL[] {root.toUri().toURL()}, SpaFallbackResolverTests.class.getClassLoader()));
+        context.setServletContext(new MockServletContext());
+        context.register(config);
+        context.refresh();
+        return context;
+    }
+
+    @Test
+    void servesIndexForDeepClientRoutes() throws Exception {
+        for (String route : new String[] {"/profile", "/a/b/c/d/e", "/a/b/c/d/e/f/g/h/", "/users/42/edit"}) {
+            mvc.perform(get(route))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Content-Type", "text/html"))
+                    .andExpect(header().string("Cache-Control", "no-cache"))
+                    .andExpect(header().string("Vary", "Accept-Encoding"))
+                    .andExpect(header().exists("ETag"))
+                    .andExpect(content().string(INDEX));
+        }
+    }
+
+    @Test
+    void servesGzipOnlyWhenAccepted() throws Exception {
+        MvcResult gzip = mvc.perform(get("/a/b").header("Accept-Encoding", "br, gzip;q=0.8"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Content-Encoding", "gzip"))
+                .andReturn();
+        byte[] body = gzip.getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+            assertEquals(INDEX, new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+
+        MvcResult identity = mvc.perform(get("/a/b").header("Accept-Encoding", "gzip;q=0.0"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Content-Encoding"))
+                .andExpect(content().string(INDEX))
+                .andReturn();
+        assertFalse(gzip.getResponse().getHeader("ETag").equals(identity.getResponse().getHeader("ETag")));
+    }
+
+    @Test
+    void answersMatchingIfNoneMatchWith304() throws Exception {
+        String etag = mvc.perform(get("/settings")).andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(get("/x/y/z").header("If-None-Match", etag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void servesIndexHtmlItselfFromMemory() throws Exception {
+        String etag = mvc.perform(get("/profile")).andReturn().getResponse().getHeader("ETag");
+
+        mvc.perform(get("/index.html"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("ETag", etag))
+                .andExpect(content().string(INDEX));
+    }
+
+    @Test
+    void controllersAndFilesStillWin() throws Exception {
+        mvc.perform(get("/api/ping")).andExpect(content().string("pong"));
+        mvc.perform(get("/app.js"))
+                .andExpect(status().isOk())
+                .andExpect(content().string("console.log(1)"));
+    }
+
+    @Test
+    void doesNotServeIndexForApiOrMissingFiles() throws Exception {
+        for (String path : new String[] {"/api/unknown", "/api", "/api/user/x", "/a/b/missing.css"}) {
+            mvc.perform(get(path)).andExpect(status().isNotFound());
+        }
+    }
+
+    @Test
+    void recognizesClientRoutes() {
+        assertTrue(SpaFallbackResolver.isClientRoute(""));
+        assertTrue(SpaFallbackResolver.isClientRoute("a/b.c/d"));
+        assertTrue(SpaFallbackResolver.isClientRoute("/apix"));
+        assertFalse(SpaFallbackResolver.isClientRoute("api"));
+        assertFalse(SpaFallbackResolver.isClientRoute("api/user"));
+        assertFalse(SpaFallbackResolver.isClientRoute("/api/user"));
+        assertFalse(SpaFallbackResolver.isClientRoute("assets/index-abc.js"));
+    }
+
+    @Test
+    void parsesGzipQValues() {
+        assertTrue(SpaFallbackResolver.acceptsGzip("gzip"));
+        assertTrue(SpaFallbackResolver.acceptsGzip("deflate, GZIP"));
+        assertTrue(SpaFallbackResolver.acceptsGzip("gzip;q=0.001"));
+        assertTrue(SpaFallbackResolver.acceptsGzip("gzip ; q=1"));
+        assertFalse(SpaFallbackResolver.acceptsGzip(null));
+        assertFalse(SpaFallbackResolver.acceptsGzip("br, deflate"));
+        assertFalse(SpaFallbackResolver.acceptsGzip("gzipx"));
+        assertFalse(SpaFallbackResolver.acceptsGzip("gzip;q=0"));
+        assertFalse(SpaFallbackResolver.acceptsGzip("gzip;q=0.0"));
+        assertFalse(SpaFallbackResolver.acceptsGzip("gzip; q=0.000"));
+        assertFalse(SpaFallbackResolver.acceptsGzip("gzip;q=nonsense"));
+    }
+}
@@ -0,0 +1,41 @@
+package app.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaticResourceConfigTests {
+
+    @Test
+    void takesTheEtagFromTheViteHash() {
+        assertEquals("BdX3k2Qa", etagOf("assets/index-BdX3k2Qa.js"));
+        assertEquals("Bd-3k_Qa", etagOf("assets/index-Bd-3k_Qa.js"));
+        assertEquals("-dX3k2Qa", etagOf("assets/index--dX3k2Qa.css"));
+        assertEquals("a1B2c3D4", etagOf("assets/vendor-react-dom-a1B2c3D4.js"));
+        assertEquals("a1B2c3D4", etagOf("assets/worker.entry-a1B2c3D4.js.map"));
+        assertEquals("Bd-3k_Qa-br", etagOf("assets/index-Bd-3k_Qa.js.br"));
+        assertEquals("Bd-3k_Qa-gzip", etagOf("assets/index-Bd-3k_Qa.js.gz"));
+    }
+
+    @Test
+    void fallsBackToSizeAndTimeWithoutAHash(@TempDir Path dir) throws Exception {
+        for (String name : new String[] {"favicon.ico", "site-logo.svg", "my-component-x.js"}) {
+            Path file = Files.writeString(dir.resolve(name), "0123456789");
+
+            String etag = StaticResourceConfig.etagOf(new FileSystemResource(file));
+
+            assertTrue(etag.startsWith("a-"), name + " -> " + etag);
+        }
+    }
+
+    private static String etagOf(String path) {
+        return StaticResourceConfig.etagOf(new ClassPathResource(path));
+    }
+}
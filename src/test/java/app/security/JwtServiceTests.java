@@ -0,0 +1,175 @@
+package app.security;
+
+import app.model.User;
+import app.model.UserRole;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Base64;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JwtServiceTests {
+
+    private static final String ACCESS_SECRET = "eM0zH3gUi0bPB6f1ETZeAQy+7i0sl5SOjv265/lq6e4=";
+    private static final String REFRESH_SECRET = "aWbAYdfEXJBFdw0ITgep1vbLZbW+uLQ9C9ETTXkkc1M=";
+    private static final long ACCESS_TTL_MS = 15 * 60_000;
+    private static final long REFRESH_TTL_MS = 7 * 24 * 3_600_000L;
+
+    private final Key accessKey = Keys.hmacShaKeyFor(ACCESS_SECRET.getBytes(StandardCharsets.UTF_8));
+    private final Key refreshKey = Keys.hmacShaKeyFor(REFRESH_SECRET.getBytes(StandardCharsets.UTF_8));
+    private JwtService jwtService;
+
+    @BeforeEach
+    void setUp() {
+        jwtService = newService(10_000);
+    }
+
+    static JwtService newService(int verifiedCacheMaxEntries) {
+        JwtService service = new JwtService();
+        ReflectionTestUtils.setField(service, "accessSecret", ACCESS_SECRET);
+        ReflectionTestUtils.setField(service, "refreshSecret", REFRESH_SECRET);
+        ReflectionTestUtils.setField(service, "accessExpirationMs", ACCESS_TTL_MS);
+        ReflectionTestUtils.setField(service, "refreshExpirationMs", REFRESH_TTL_MS);
+        ReflectionTestUtils.setField(service, "verifiedCacheMaxEntries", verifiedCacheMaxEntries);
+        service.init();
+        return service;
+    }
+
+    static User user(String name) {
+        User user = new User();
+        user.setId(42L);
+        user.setName(name);
+        user.setEmail("ada@example.com");
+        user.setRole(UserRole.ADMIN);
+        user.setTokenVersion(3);
+        user.setTokenEpoch(7);
+        return user;
+    }
+
+    @Test
+    void accessTokenParsesWithJjwt() {
+        long before = System.currentTimeMillis() / 1000;
+        String token = jwtService.generateToken(user("Ada Lovelace"));
+        long after = System.currentTimeMillis() / 1000;
+
+        String[] parts = token.split("\\.");
+        assertEquals(3, parts.length);
+        assertEquals("{\"alg\":\"HS256\"}", new String(Base64.getUrlDecoder().decode(parts[0]), StandardCharsets.UTF_8));
+        assertFalse(token.contains("="), "compact JWTs carry no base64 padding");
+
+        Jws<Claims> jws = Jwts.parserBuilder().setSigningKey(accessKey).build().parseClaimsJws(token);
+        assertEquals("HS256", jws.getHeader().getAlgorithm());
+
+        Claims claims = jws.getBody();
+        assertEquals("42", claims.getSubject());
+        assertEquals("ADMIN", claims.get("role"));
+        assertEquals("ada@example.com", claims.get("email"));
+        assertEquals("Ada Lovelace", claims.get("name"));
+        assertEquals(3, claims.get("ver"));
+        assertEquals(7, claims.get("epc"));
+        assertEquals(4, UUID.fromString(claims.getId()).version());
+
+        long iat = claims.getIssuedAt().getTime() / 1000;
+        long exp = claims.getExpiration().getTime() / 1000;
+        assertTrue(iat >= before && iat <= after, "iat is the issue time in seconds");
+        assertEquals(ACCESS_TTL_MS / 1000, exp - iat);
+    }
+
+    @Test
+    void accessTokenVerifiesThroughJwtService() {
+        String token = jwtService.generateToken(user("Ada Lovelace"));
+
+        AccessTokenVerification verification = jwtService.verifyAccessToken(token);
+
+        assertTrue(verification.isValid());
+        assertEquals("42", verification.getSubject());
+        assertEquals(List.of("ADMIN"), verification.getRoles());
+        assertEquals("ada@example.com", verification.getEmail());
+        assertEquals("Ada Lovelace", verification.getName());
+        assertEquals(3, verification.getVersion());
+        assertEquals(7, verification.getEpoch());
+        assertTrue(jwtService.validateToken(token, 42L));
+        assertEquals("42", jwtService.extractSubject(token));
+    }
+
+    @Test
+    void authorityListRoundTripsFromUserDetails() {
+        String token = jwtService.generateToken(new CustomUserDetails(user("Ada")));
+
+        Claims claims = Jwts.parserBuilder().setSigningKey(accessKey).build().parseClaimsJws(token).getBody();
+        assertEquals(List.of("ROLE_ADMIN"), claims.get("role"));
+        assertEquals(List.of("ADMIN"), jwtService.verifyAccessToken(token).getRoles());
+    }
+
+    @Test
+    void escapesStringClaims() {
+        String name = "O'Brien \"Bob\" \\ tab\t line\n bell\u0007 ünïcødé 😀";
+        String token = jwtService.generateToken(user(name));
+
+        Claims claims = Jwts.parserBuilder().setSigningKey(accessKey).build().parseClaimsJws(token).getBody();
+        assertEquals(name, claims.get("name"));
+        assertEquals(name, jwtService.verifyAccessToken(token).getName());
+    }
+
+    @Test
+    void rejectsTamperedSignatureAndForeignKey() {
+        String token = jwtService.generateToken(user("Ada"));
+        char last = token.charAt(token.length() - 2);
+        String tampered = token.substring(0, token.length() - 2) + (last == 'A' ? 'B' : 'A') + token.charAt(token.length() - 1);
+
+        assertEquals(AccessTokenVerification.Status.BAD_SIGNATURE, jwtService.verifyAccessToken(tampered).getStatus());
+        assertThrows(JwtException.class,
+                () -> Jwts.parserBuilder().setSigningKey(refreshKey).build().parseClaimsJws(token));
+    }
+
+    @Test
+    void refreshTokenParsesWithJjwt() {
+        String token = jwtService.generateRefreshToken(42L, 5);
+
+        Claims claims = Jwts.parserBuilder().setSigningKey(refreshKey).build().parseClaimsJws(token).getBody();
+        assertEquals("42", claims.getSubject());
+        assertEquals("refresh", claims.get("type"));
+        assertEquals(5, claims.get("epc"));
+        assertEquals(REFRESH_TTL_MS / 1000,
+                claims.getExpiration().getTime() / 1000 - claims.getIssuedAt().getTime() / 1000);
+
+        assertTrue(jwtService.validateRefreshToken(token));
+        assertEquals(42L, jwtService.getUserIdFromRefreshToken(token));
+        assertEquals(5, jwtService.getEpochFromRefreshToken(token));
+        assertFalse(jwtService.isRefreshTokenExpired(token));
+        assertEquals(AccessTokenVerification.Status.BAD_SIGNATURE, jwtService.verifyAccessToken(token).getStatus());
+    }
+
+    @Test
+    void jjwtBuiltTokensStillVerify() {
+        String token = Jwts.builder()
+                .claim("role", "USER")
+                .claim("email", "ada@example.com")
+                .setId(UUID.randomUUID().toString())
+                .setSubject("42")
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + ACCESS_TTL_MS))
+                .signWith(accessKey)
+                .compact();
+
+        AccessTokenVerification verification = jwtService.verifyAccessToken(token);
+        assertTrue(verification.isValid());
+        assertEquals(List.of("USER"), verification.getRoles());
+        assertEquals(0, verification.getVersion());
+    }
+}
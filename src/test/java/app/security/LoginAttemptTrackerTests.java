@@ -0,0 +1,106 @@
+package app.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.function.Executable;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class LoginAttemptTrackerTests {
+
+    private static final String EMAIL = "ada@example.com";
+    private static final String ATTACKER = "203.0.113.7";
+    private static final String OWNER = "198.51.100.2";
+
+    // 3 free attempts per (email, address), 10 per address, 1 s base lockout capped at 8 s
+    private final LoginAttemptTracker tracker =
+            new LoginAttemptTracker(1000, 3, 10, 1000, 8000, 60_000, new SimpleMeterRegistry());
+
+    @Test
+    void allowsTheFreeAttempts() {
+        failTimes(3, EMAIL, ATTACKER, 0);
+
+        assertDoesNotThrow(allowed(EMAIL, ATTACKER, 0));
+    }
+
+    @Test
+    void doublesTheLockoutUpToTheCap() {
+        long now = 0;
+        failTimes(3, EMAIL, ATTACKER, now);
+
+        long[] expectedSeconds = {1, 2, 4, 8, 8};
+        for (long seconds : expectedSeconds) {
+            tracker.recordFailure(EMAIL, ATTACKER, now);
+            assertEquals(seconds, retryAfter(EMAIL, ATTACKER, now));
+            now += seconds * 1000;
+            assertDoesNotThrow(allowed(EMAIL, ATTACKER, now));
+        }
+    }
+
+    @Test
+    void forgetsFailuresAfterTheResetWindow() {
+        failTimes(4, EMAIL, ATTACKER, 0);
+
+        tracker.recordFailure(EMAIL, ATTACKER, 61_000);
+
+        assertDoesNotThrow(allowed(EMAIL, ATTACKER, 61_000));
+    }
+
+    @Test
+    void successClearsTheEmailCountButNotTheAddressCount() {
+        failTimes(4, EMAIL, ATTACKER, 0);
+        tracker.recordSuccess(EMAIL, ATTACKER);
+
+        assertDoesNotThrow(allowed(EMAIL, ATTACKER, 0));
+
+        failTimes(6, "other@example.com", ATTACKER, 0); // 10 address failures in total
+        tracker.recordFailure("third@example.com", ATTACKER, 0);
+        assertEquals(1, retryAfter("fourth@example.com", ATTACKER, 0));
+    }
+
+    @Test
+    void lockoutOfAnEmailDoesNotBlockOtherAddresses() {
+        failTimes(8, EMAIL, ATTACKER, 0);
+
+        assertThrows(LoginThrottledException.class, () -> tracker.checkAllowed(EMAIL, ATTACKER, 0));
+        assertDoesNotThrow(allowed(EMAIL, OWNER, 0));
+        assertDoesNotThrow(allowed(" ADA@example.com", OWNER, 0));
+    }
+
+    @Test
+    void normalizesTheEmail() {
+        failTimes(4, EMAIL, ATTACKER, 0);
+
+        assertEquals(1, retryAfter(" Ada@Example.COM ", ATTACKER, 0));
+    }
+
+    @Test
+    void letsOneAttemptThroughWhenALockoutExpires() {
+        failTimes(4, EMAIL, ATTACKER, 0); // locked for 1 s
+
+        assertDoesNotThrow(allowed(EMAIL, ATTACKER, 1000));
+        // A second attempt racing the first is held until the first one is recorded
+        assertEquals(1, retryAfter(EMAIL, ATTACKER, 1000));
+        assertDoesNotThrow(allowed(EMAIL, OWNER, 1000));
+
+        tracker.recordFailure(EMAIL, ATTACKER, 1000);
+        assertEquals(2, retryAfter(EMAIL, ATTACKER, 1000));
+    }
+
+    private void failTimes(int times, String email, String address, long now) {
+        for (int i = 0; i < times; i++) {
+            tracker.recordFailure(email, address, now);
+        }
+    }
+
+    private Executable allowed(String email, String address, long now) {
+        return () -> tracker.checkAllowed(email, address, now);
+    }
+
+    private long retryAfter(String email, String address, long now) {
+        return assertThrows(LoginThrottledException.class, () -> tracker.checkAllowed(email, address, now))
+                .getRetryAfterSeconds();
+    }
+}
@@ -0,0 +1,196 @@
+package app.security;
+
+import app.dto.LoginRequest;
+import app.model.User;
+import app.model.UserRole;
+import app.repository.UserRepository;
+import app.service.AuthService;
+import app.service.CustomUserDetailsService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.authentication.ProviderManager;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Legitimate-login latency while a credential-stuffing run hammers the same
+ * service, with the login wiring of SecurityConfig and AuthService: BCrypt
+ * strength 10 on a one-worker BoundedPasswordEncoder behind a
+ * DaoAuthenticationProvider, and LoginAttemptTracker with its default limits.
+ * <ul>
+ *   <li>{@code quiet}: one thread logging in as 100 real users, each from its
+ *       own address, with the right password; nothing else running</li>
+ *   <li>{@code stuffing}: the same legitimate thread, plus 4 attacker threads
+ *       cycling 1,000 emails (half of them real accounts) with wrong passwords
+ *       from 8 addresses, each pausing 1 ms between requests (~4,000 req/s)</li>
+ *   <li>{@code unthrottled}: as {@code stuffing}, with the tracker's free
+ *       attempts raised so far that no one is ever locked out, which is the
+ *       behaviour before it existed</li>
+ * </ul>
+ * SampleTime reports p50/p99 per method; the *_login rows are the legitimate
+ * logins and the *_attack rows show how fast stuffing attempts are turned away.
+ * The long warmup covers the attackers' free attempts (20 per address, each a
+ * full BCrypt check), so the measurement sees the locked-out steady state.
+ * <pre>
+ * mvn -Dexec.skip=true test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) app.security.LoginStuffingBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 6, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class LoginStuffingBenchmark {
+
+    private static final int STRENGTH = 10;
+    private static final String PASSWORD = "correct horse battery staple";
+    private static final int LEGITIMATE_USERS = 100;
+    private static final int STUFFED_EMAILS = 1_000;
+    private static final int ATTACKER_ADDRESSES = 8;
+
+    private BoundedPasswordEncoder passwordEncoder;
+    private AuthService throttled;
+    private AuthService unthrottled;
+
+    private final AtomicInteger nextLogin = new AtomicInteger();
+    private final AtomicInteger nextAttack = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        passwordEncoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(STRENGTH), STRENGTH, 1, 64, 1, registry);
+
+        String hash = passwordEncoder.encode(PASSWORD);
+        Map<String, User> users = new HashMap<>();
+        // Real accounts: the legitimate users first, then the ones the stuffing list also hits
+        for (int i = 0; i < LEGITIMATE_USERS + STUFFED_EMAILS / 2; i++) {
+            User user = new User();
+            user.setId((long) i + 1);
+            user.setName("User " + i);
+            user.setEmail(email(i));
+            user.setPassword(hash);
+            user.setRole(UserRole.USER);
+            users.put(user.getEmail(), user);
+        }
+        UserRepository userRepository = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findByEmail")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    return Optional.ofNullable(users.get((String) args[0]));
+                });
+
+        throttled = authService(userRepository, new LoginAttemptTracker(50_000, 5, 20, 1_000, 900_000, 900_000, registry), registry);
+        unthrottled = authService(userRepository,
+                new LoginAttemptTracker(50_000, Integer.MAX_VALUE, Integer.MAX_VALUE, 1_000, 900_000, 900_000,
+                        new SimpleMeterRegistry()), registry);
+    }
+
+    private AuthService authService(UserRepository userRepository, LoginAttemptTracker tracker, SimpleMeterRegistry registry) {
+        CustomUserDetailsService userDetailsService = new CustomUserDetailsService(userRepository,
+                new PrincipalCache(1_000, 300_000, registry));
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider(userDetailsService);
+        provider.setPasswordEncoder(passwordEncoder);
+        return new AuthService(new ProviderManager(provider), JwtServiceTests.newService(0), userRepository,
+                passwordEncoder, null, null, null, tracker);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        passwordEncoder.shutdown();
+    }
+
+    private static String email(int i) {
+        return "user" + i + "@example.com";
+    }
+
+    private Map<String, Object> login(AuthService service) {
+        int user = Math.floorMod(nextLogin.getAndIncrement(), LEGITIMATE_USERS);
+        return service.login(new LoginRequest(email(user), PASSWORD), "198.51.100." + user);
+    }
+
+    private boolean attack(AuthService service) throws InterruptedException {
+        int attempt = nextAttack.getAndIncrement();
+        // Half the list are real accounts (ids 100..599), half do not exist
+        int target = LEGITIMATE_USERS + Math.floorMod(attempt, STUFFED_EMAILS);
+        String address = "203.0.113." + Math.floorMod(attempt, ATTACKER_ADDRESSES);
+        boolean refused;
+        try {
+            service.login(new LoginRequest(email(target), "hunter" + attempt), address);
+            refused = false;
+        } catch (LoginThrottledException e) {
+            refused = true;
+        } catch (RuntimeException e) {
+            refused = false; // bad credentials, after a full BCrypt check
+        }
+        Thread.sleep(1);
+        return refused;
+    }
+
+    @Benchmark
+    @Group("quiet")
+    public Map<String, Object> quiet_login() {
+        return login(throttled);
+    }
+
+    @Benchmark
+    @Group("stuffing")
+    @GroupThreads(1)
+    public Map<String, Object> stuffing_login() {
+        return login(throttled);
+    }
+
+    @Benchmark
+    @Group("stuffing")
+    @GroupThreads(4)
+    public boolean stuffing_attack() throws InterruptedException {
+        return attack(throttled);
+    }
+
+    @Benchmark
+    @Group("unthrottled")
+    @GroupThreads(1)
+    public Map<String, Object> unthrottled_login() {
+        return login(unthrottled);
+    }
+
+    @Benchmark
+    @Group("unthrottled")
+    @GroupThreads(4)
+    public boolean unthrottled_attack() throws InterruptedException {
+        return attack(unthrottled);
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(LoginStuffingBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
@@ -0,0 +1,112 @@
+package app.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestClassifierTests {
+
+    // SecurityConfig's permitAll list before the trie, matched with AntPathMatcher
+    private static final String[] ANT_PUBLIC_ENDPOINTS = {
+        "/", "/index.html", "/static/**", "/assets/**",
+        "/*.js", "/*.css", "/*.json", "/*.png", "/*.jpg",
+        "/*.jpeg", "/*.gif", "/*.svg", "/*.ico",
+        "/favicon.ico", "/error",
+        "/api/auth/register",
+        "/api/auth/login",
+        "/api/csrf", "/api/auth/refresh",
+        "/about", "/login", "/register", "/user"
+    };
+
+    private final RequestClassifier classifier = new RequestClassifier();
+
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({
+        // path,                          public, static, strict, lenient
+        "/,                               true,   false,  false,  false",
+        "/index.html,                     true,   false,  false,  false",
+        "/error,                          true,   false,  false,  false",
+        "/about,                          true,   false,  false,  false",
+        "/about/,                         false,  false,  false,  false",
+        "//about,                         false,  false,  false,  false",
+        "/about/team,                     false,  false,  false,  false",
+        "/user,                           true,   false,  false,  false",
+        "/users,                          false,  false,  false,  false",
+        "/favicon.ico,                    true,   true,   false,  false",
+        "/main.js,                        true,   true,   false,  false",
+        "/.js,                            true,   true,   false,  false",
+        "/main.jsx,                       false,  false,  false,  false",
+        "/nested/main.js,                 false,  false,  false,  false",
+        "/assets,                         true,   true,   false,  false",
+        "/assets/,                        true,   true,   false,  false",
+        "/assets/index-abc.js,            true,   true,   false,  false",
+        "/assets//deep/x.css,             true,   true,   false,  false",
+        "/static/js/main.js,              true,   true,   false,  false",
+        "/staticx/main.js,                false,  false,  false,  false",
+        "/api/auth/login,                 true,   false,  true,   false",
+        "/api/auth/login/,                false,  false,  true,   false",
+        "/api/auth/loginx,                false,  false,  false,  false",
+        "/api/auth/register,              true,   false,  true,   false",
+        "/api/csrf,                       true,   false,  true,   false",
+        "/api/auth/refresh,               true,   false,  false,  false",
+        "/api/auth/logout,                false,  false,  false,  true",
+        "/api/auth/logout-all,            false,  false,  false,  true",
+        "/api/user,                       false,  false,  false,  true",
+        "/api/user/7/profile-image,       false,  false,  false,  true",
+        "/api/user.json,                  false,  false,  false,  false",
+        "/api/demo/x,                     false,  false,  false,  true",
+        "/API/user,                       false,  false,  false,  false",
+        "'',                              false,  false,  false,  false",
+        "relative,                        false,  false,  false,  false",
+    })
+    void classifiesPaths(String path, boolean isPublic, boolean isStatic, boolean strict, boolean lenient) {
+        RequestClassifier.RequestClass requestClass = RequestClassifier.RequestClass.of(classifier.match(path));
+
+        assertEquals(isPublic, requestClass.isPublic(), "public");
+        assertEquals(isStatic, requestClass.isStatic(), "static");
+        assertEquals(strict, requestClass.isStrictOrigin(), "strict origin");
+        assertEquals(lenient, requestClass.isLenientOrigin(), "lenient origin");
+    }
+
+    // "//" paths are left out: AntPathMatcher drops empty segments, the trie (like the firewall) does not
+    @ParameterizedTest(name = "{0}")
+    @CsvSource({
+        "/", "/index.html", "/error", "/error/x", "/about", "/about/", "/login", "/register", "/user", "/user/1",
+        "/favicon.ico", "/x.ico", "/logo.png", "/a.jpeg", "/a.gif", "/a.svg", "/manifest.json", "/app.css",
+        "/main.js", "/main.jsx", "/nested/main.js", "/assets", "/assets/", "/assets/a/b.js", "/static",
+        "/static/css/x.css", "/staticx", "/api/auth/login", "/api/auth/login/", "/api/auth/register",
+        "/api/auth/refresh", "/api/auth/refresh-token", "/api/csrf", "/api/csrf/x", "/api/user", "/api/demo",
+        "/profile", "/a/b/c/d/e",
+    })
+    void publicPathsMatchTheAntRules(String path) {
+        AntPathMatcher ant = new AntPathMatcher();
+        boolean expected = Arrays.stream(ANT_PUBLIC_ENDPOINTS).anyMatch(pattern -> ant.match(pattern, path));
+
+        assertEquals(expected, RequestClassifier.RequestClass.of(classifier.match(path)).isPublic());
+    }
+
+    @Test
+    void reusesTheClassForTheSameUri() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user");
+
+        assertSame(classifier.classify(request), classifier.classify(request));
+    }
+
+    @Test
+    void reclassifiesWhenADispatchChangesTheUri() {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/user/profile-image");
+        assertFalse(classifier.isPublic(request));
+
+        request.setRequestURI("/error"); // ERROR dispatch of the same request
+        assertTrue(classifier.isPublic(request));
+    }
+}
@@ -0,0 +1,89 @@
+package app.security;
+
+import app.model.User;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.security.Key;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Access-token minting through {@link TokenMinter} against the jjwt builder
+ * path JwtService used before (claims map, UUID.randomUUID() jti, Jackson
+ * serialisation, a fresh Mac per signature).
+ *
+ * The jjwt path needs a long warmup before its timings settle. Run through
+ * the JMH launcher with -prof gc to compare allocation per token as well:
+ * <pre>
+ * mvn -Dexec.skip=true test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) org.openjdk.jmh.Main TokenMintBenchmark -prof gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 10, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class TokenMintBenchmark {
+
+    private JwtService jwtService;
+    private Key accessKey;
+    private User user;
+
+    @Setup
+    public void setUp() {
+        jwtService = JwtServiceTests.newService(0);
+        accessKey = Keys.hmacShaKeyFor("eM0zH3gUi0bPB6f1ETZeAQy+7i0sl5SOjv265/lq6e4=".getBytes(StandardCharsets.UTF_8));
+        user = JwtServiceTests.user("Ada Lovelace");
+    }
+
+    @Benchmark
+    public String minter() {
+        return jwtService.generateToken(user);
+    }
+
+    @Benchmark
+    public String jjwtBuilder() {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("role", user.getRole().name());
+        claims.put("email", user.getEmail());
+        claims.put("name", user.getName());
+        claims.put("ver", user.getTokenVersion());
+        claims.put("epc", user.getTokenEpoch());
+
+        return Jwts.builder()
+                .setClaims(claims)
+                .setId(UUID.randomUUID().toString())
+                .setSubject(String.valueOf(user.getId()))
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 15 * 60_000))
+                .signWith(accessKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(TokenMintBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
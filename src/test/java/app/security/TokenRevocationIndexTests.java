@@ -0,0 +1,61 @@
+package app.security;
+
+import app.repository.TokenBlacklistRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class TokenRevocationIndexTests {
+
+    private final TokenBlacklistRepository repository = mock(TokenBlacklistRepository.class);
+    private final TokenRevocationIndex index = new TokenRevocationIndex(repository, 100);
+
+    @Test
+    void keepsAnsweringFromMemoryPastTheInitialCapacity() {
+        Instant expiry = Instant.now().plus(1, ChronoUnit.HOURS);
+        List<String> jtis = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            String jti = UUID.randomUUID().toString();
+            jtis.add(jti);
+            index.revoke(1L, jti, expiry);
+        }
+
+        assertEquals(1_000, index.size());
+        for (String jti : jtis) {
+            assertTrue(index.isRevoked(jti));
+        }
+        verify(repository, times(1_000)).insertIfAbsent(any(), any(), any(), anyInt());
+        verify(repository, never()).existsByJti(any());
+        // Only the odd Bloom false positive reaches the database
+        for (int i = 0; i < 1_000; i++) {
+            assertFalse(index.isRevoked(UUID.randomUUID().toString()));
+        }
+        verify(repository, atMost(50)).existsByJti(any());
+    }
+
+    @Test
+    void revokesEachJtiOnce() {
+        String jti = UUID.randomUUID().toString();
+        Instant expiry = Instant.now().plus(1, ChronoUnit.HOURS);
+
+        index.revoke(1L, jti, expiry);
+        index.revoke(1L, jti, expiry);
+
+        verify(repository, times(1)).insertIfAbsent(any(), any(), any(), anyInt());
+    }
+}
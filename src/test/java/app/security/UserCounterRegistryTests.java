@@ -0,0 +1,63 @@
+package app.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserCounterRegistryTests {
+
+    @Test
+    void loadsEachUserOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        UserCounterRegistry registry = new UserCounterRegistry(userId -> {
+            loads.incrementAndGet();
+            return Optional.of(4);
+        });
+
+        assertEquals(4, registry.current(1L));
+        assertTrue(registry.isCurrent(1L, 4));
+        assertFalse(registry.isCurrent(1L, 3));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void remembersUnknownUsers() {
+        AtomicInteger loads = new AtomicInteger();
+        UserCounterRegistry registry = new UserCounterRegistry(userId -> {
+            loads.incrementAndGet();
+            return Optional.empty();
+        });
+
+        for (int i = 0; i < 100; i++) {
+            assertFalse(registry.isCurrent(9L, 0));
+        }
+        assertEquals(UserCounterRegistry.UNKNOWN, registry.current(9L));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void publishReplacesAnUnknownEntry() {
+        UserCounterRegistry registry = new UserCounterRegistry(userId -> Optional.empty());
+        assertEquals(UserCounterRegistry.UNKNOWN, registry.current(9L));
+
+        registry.publish(9L, 2);
+
+        assertEquals(2, registry.current(9L));
+        assertTrue(registry.isCurrent(9L, 2));
+    }
+
+    @Test
+    void publishNeverMovesBackwards() {
+        UserCounterRegistry registry = new UserCounterRegistry(userId -> Optional.of(5));
+        registry.current(1L);
+
+        registry.publish(1L, 3);
+
+        assertEquals(5, registry.current(1L));
+    }
+}
@@ -0,0 +1,102 @@
+package app.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AreaAverageResizerTests {
+
+    private static final ProfileImageResizer NO_FALLBACK = (source, size) -> {
+        throw new AssertionError("fallback used for a downscale");
+    };
+
+    private final BufferedImage source = photo(480, 360);
+
+    @Test
+    void keepsTheAspectRatioWithinTheSize() throws IOException {
+        BufferedImage resized = new AreaAverageResizer(NO_FALLBACK).resize(source, 120);
+
+        assertEquals(120, resized.getWidth());
+        assertEquals(90, resized.getHeight());
+    }
+
+    @Test
+    void matchesJava2dAreaAveraging() throws IOException {
+        AreaAverageResizer resizer = new AreaAverageResizer(NO_FALLBACK);
+
+        for (int size : new int[] {32, 64, 120, 240}) {
+            BufferedImage resized = resizer.resize(source, size);
+            double psnr = psnr(resized, reference(source, resized.getWidth(), resized.getHeight()));
+            assertTrue(psnr > 45, "PSNR at " + size + "px was " + psnr + " dB");
+        }
+    }
+
+    @Test
+    void vectorAndScalarKernelsAgree() throws IOException {
+        // Scalar twice when the JVM runs without jdk.incubator.vector
+        AreaAverageResizer vector = new AreaAverageResizer(AreaAverageResizer.vectorKernel(), NO_FALLBACK);
+        AreaAverageResizer scalar = new AreaAverageResizer(AreaAverageResizer.SCALAR, NO_FALLBACK);
+
+        for (int size : new int[] {32, 120, 240}) {
+            assertTrue(psnr(vector.resize(source, size), scalar.resize(source, size)) > 50);
+        }
+    }
+
+    @Test
+    void leavesEnlargingToTheFallback() throws IOException {
+        BufferedImage enlarged = new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        AreaAverageResizer resizer = new AreaAverageResizer((image, size) -> enlarged);
+
+        assertSame(enlarged, resizer.resize(photo(100, 80), 120));
+    }
+
+    private static BufferedImage photo(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, Color.BLUE));
+        g.fillRect(0, 0, width, height);
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            g.setColor(new Color(random.nextInt()));
+            g.fillOval(random.nextInt(width), random.nextInt(height), random.nextInt(40), random.nextInt(40));
+        }
+        g.dispose();
+        return image;
+    }
+
+    private static BufferedImage reference(BufferedImage source, int width, int height) {
+        BufferedImage reference = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = reference.createGraphics();
+        g.drawImage(source.getScaledInstance(width, height, Image.SCALE_AREA_AVERAGING), 0, 0, null);
+        g.dispose();
+        return reference;
+    }
+
+    private static double psnr(BufferedImage a, BufferedImage b) {
+        assertEquals(a.getWidth(), b.getWidth());
+        assertEquals(a.getHeight(), b.getHeight());
+        double squaredError = 0;
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                int p = a.getRGB(x, y);
+                int q = b.getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8) {
+                    double d = ((p >> shift) & 0xff) - ((q >> shift) & 0xff);
+                    squaredError += d * d;
+                }
+            }
+        }
+        double mse = squaredError / (a.getWidth() * a.getHeight() * 3.0);
+        return mse == 0 ? Double.POSITIVE_INFINITY : 10 * Math.log10(255.0 * 255.0 / mse);
+    }
+}
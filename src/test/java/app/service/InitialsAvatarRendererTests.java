@@ -0,0 +1,54 @@
+package app.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InitialsAvatarRendererTests {
+
+    private final InitialsAvatarRenderer renderer = new InitialsAvatarRenderer(64, new SimpleMeterRegistry());
+
+    @Test
+    void takesTheFirstAndLastInitials() {
+        assertEquals("AL", InitialsAvatarRenderer.initials("ada  king lovelace"));
+        assertEquals("G", InitialsAvatarRenderer.initials(" grace "));
+        assertEquals("ÉB", InitialsAvatarRenderer.initials("élodie (bea)"));
+        assertEquals("?", InitialsAvatarRenderer.initials("  "));
+        assertEquals("?", InitialsAvatarRenderer.initials(null));
+    }
+
+    @Test
+    void sharesRenderingsBetweenUsersWithTheSameInitialsAndColour() {
+        // The colour is hashed from the id: find another user with the same colour and initials
+        long other = 2;
+        while (!renderer.version(other, "Ada Lovelace").equals(renderer.version(1, "Alan Lee"))) {
+            other++;
+        }
+
+        assertSame(renderer.render(1, "Alan Lee", 120), renderer.render(other, "Ada Lovelace", 120));
+    }
+
+    @Test
+    void rendersDeterministicSvgWithAContentETag() {
+        InitialsAvatarRenderer.Rendering rendering = renderer.render(7, "Grace Hopper", 64);
+        InitialsAvatarRenderer.Rendering fresh = new InitialsAvatarRenderer(64, new SimpleMeterRegistry())
+                .render(7, "Grace Hopper", 64);
+
+        String svg = new String(rendering.svg(), StandardCharsets.UTF_8);
+        assertTrue(svg.startsWith("<svg") && svg.contains(">GH</text>") && svg.contains("width=\"64\""), svg);
+        assertEquals(rendering.etag(), fresh.etag());
+        assertNotEquals(rendering.etag(), renderer.render(7, "Grace Hopper", 120).etag());
+    }
+
+    @Test
+    void versionChangesWithTheName() {
+        assertNotEquals(renderer.version(7, "Grace Hopper"), renderer.version(7, "Ada Lovelace"));
+        assertEquals(renderer.version(7, "Grace Hopper"), renderer.version(7, "grace m. hopper"));
+    }
+}
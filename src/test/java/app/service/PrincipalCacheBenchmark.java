@@ -0,0 +1,124 @@
+package app.service;
+
+import app.model.User;
+import app.model.UserRole;
+import app.repository.UserRepository;
+import app.security.CustomUserDetails;
+import app.security.PrincipalCache;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.lang.reflect.Proxy;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Database lookups per authenticated request with and without the principal
+ * cache in front of {@link CustomUserDetailsService#loadUserById}.
+ *
+ * Requests come from 10,000 users with a skewed distribution (a few users
+ * send most requests). The repository is an in-memory stub that counts
+ * findById calls, so the dbCalls counter divided by the request rate is the
+ * number of DB round trips per request. cacheEntries=0 is the old path,
+ * where every request loads the user.
+ * <pre>
+ * mvn -Dexec.skip=true test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java -cp target/test-classes:target/classes:$(cat target/cp.txt) app.service.PrincipalCacheBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PrincipalCacheBenchmark {
+
+    private static final int USERS = 10_000;
+
+    @Param({"0", "1000", "10000"})
+    public int cacheEntries;
+
+    private UserRepository userRepository;
+    private CustomUserDetailsService service;
+    private long[] requests;
+    private int next;
+    private long lookups;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long dbCalls;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            dbCalls = 0;
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        userRepository = (UserRepository) Proxy.newProxyInstance(
+                UserRepository.class.getClassLoader(),
+                new Class<?>[]{UserRepository.class},
+                (proxy, method, args) -> {
+                    if (!method.getName().equals("findById")) {
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                    lookups++;
+                    return Optional.of(user((Long) args[0]));
+                });
+        service = new CustomUserDetailsService(userRepository,
+                new PrincipalCache(Math.max(cacheEntries, 1), 300_000, new SimpleMeterRegistry()));
+
+        Random random = new Random(42);
+        requests = new long[1 << 16];
+        for (int i = 0; i < requests.length; i++) {
+            double u = random.nextDouble();
+            requests[i] = 1 + (long) (USERS * u * u * u);
+        }
+    }
+
+    @Benchmark
+    public UserDetails loadUserById(Counters counters) {
+        long id = requests[next++ & (requests.length - 1)];
+        long before = lookups;
+        UserDetails principal = cacheEntries > 0
+                ? service.loadUserById(id)
+                : userRepository.findById(id).map(CustomUserDetails::new).orElseThrow();
+        counters.dbCalls += lookups - before;
+        return principal;
+    }
+
+    private static User user(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setName("User " + id);
+        user.setEmail("user" + id + "@example.com");
+        user.setRole(UserRole.USER);
+        return user;
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .include(PrincipalCacheBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
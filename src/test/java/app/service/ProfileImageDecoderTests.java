@@ -0,0 +1,89 @@
+package app.service;
+
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProfileImageDecoderTests {
+
+    private static final int TARGET = 120;
+
+    private final ProfileImageDecoder decoder = new ProfileImageDecoder(50_000_000L, 16_384);
+
+    @Test
+    void subsamplesLargeImagesCloseToTheTarget() throws IOException {
+        byte[] jpeg = jpeg(4000, 3000);
+
+        BufferedImage image = decoder.decode(new ByteArrayInputStream(jpeg), TARGET);
+
+        // Every 16th pixel: the longer side lands between 2x and 4x the target
+        assertEquals(250, image.getWidth());
+        assertEquals(188, image.getHeight());
+    }
+
+    @Test
+    void allocatesFarLessThanTheFullBitmapPerUpload() throws IOException {
+        byte[] jpeg = jpeg(4000, 3000);
+        long fullBitmap = 4000L * 3000 * 3;
+
+        decoder.decode(new ByteArrayInputStream(jpeg), TARGET); // warm up readers and caches
+        long allocated = allocatedBytes(() -> decoder.decode(new ByteArrayInputStream(jpeg), TARGET));
+
+        assertTrue(allocated < fullBitmap / 4,
+                "decode allocated " + allocated + " bytes, full bitmap is " + fullBitmap);
+    }
+
+    @Test
+    void rejectsImagesOverThePixelLimitFromTheHeader() throws IOException {
+        ProfileImageDecoder strict = new ProfileImageDecoder(1_000_000L, 16_384);
+        byte[] jpeg = jpeg(2000, 1000);
+
+        assertThrows(ProfileImageRejectedException.class,
+                () -> strict.decode(new ByteArrayInputStream(jpeg), TARGET));
+    }
+
+    @Test
+    void rejectsDataThatIsNotAnImage() {
+        byte[] text = "not an image".getBytes();
+
+        assertThrows(ProfileImageRejectedException.class,
+                () -> decoder.decode(new ByteArrayInputStream(text), TARGET));
+    }
+
+    private static byte[] jpeg(int width, int height) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, Color.BLUE));
+        g.fillRect(0, 0, width, height);
+        g.dispose();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "jpg", out);
+        return out.toByteArray();
+    }
+
+    private static long allocatedBytes(Decode decode) throws IOException {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().threadId();
+        long before = threads.getThreadAllocatedBytes(thread);
+        decode.run();
+        return threads.getThreadAllocatedBytes(thread) - before;
+    }
+
+    @FunctionalInterface
+    private interface Decode {
+        void run() throws IOException;
+    }
+}
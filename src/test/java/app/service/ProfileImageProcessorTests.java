@@ -0,0 +1,108 @@
+package app.service;
+
+import app.dto.ProfileImageJobStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ProfileImageProcessorTests {
+
+    private static final long USER = 7L;
+
+    private final UserProfileImageService service = mock(UserProfileImageService.class);
+    private final ProfileImageProcessor processor =
+            new ProfileImageProcessor(service, 2, 8, 1 << 20, 1, 100, new SimpleMeterRegistry());
+
+    @AfterEach
+    void tearDown() {
+        processor.shutdown();
+    }
+
+    @Test
+    void processesOneUsersUploadsOneAtATimeAndKeepsTheNewest() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        List<Byte> saved = new CopyOnWriteArrayList<>();
+
+        when(service.saveCompressedImage(eq(USER), any())).thenAnswer(invocation -> {
+            byte[] upload = invocation.getArgument(1);
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            if (upload[0] == 1) {
+                firstStarted.countDown();
+                assertTrue(releaseFirst.await(5, TimeUnit.SECONDS));
+            }
+            saved.add(upload[0]);
+            running.decrementAndGet();
+            return LocalDateTime.now();
+        });
+
+        processor.submit(USER, upload(1));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        ProfileImageJobStatus second = processor.submit(USER, upload(2));
+        Thread.sleep(100); // the second worker is free and must wait for the user's lock
+        releaseFirst.countDown();
+
+        awaitState(second.getJobId(), ProfileImageJobStatus.State.DONE);
+        assertEquals(1, maxRunning.get());
+        assertEquals(List.of((byte) 1, (byte) 2), saved);
+    }
+
+    @Test
+    void dropsAnUploadSupersededWhileWaitingForTheUsersLock() throws Exception {
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+        List<Byte> saved = new CopyOnWriteArrayList<>();
+
+        when(service.saveCompressedImage(eq(USER), any())).thenAnswer(invocation -> {
+            byte[] upload = invocation.getArgument(1);
+            if (upload[0] == 1) {
+                firstStarted.countDown();
+                assertTrue(releaseFirst.await(5, TimeUnit.SECONDS));
+            }
+            saved.add(upload[0]);
+            return LocalDateTime.now();
+        });
+
+        processor.submit(USER, upload(1));
+        assertTrue(firstStarted.await(5, TimeUnit.SECONDS));
+        processor.submit(USER, upload(2)); // waits on the user's lock
+        ProfileImageJobStatus third = processor.submit(USER, upload(3)); // queued behind it
+        releaseFirst.countDown();
+
+        awaitState(third.getJobId(), ProfileImageJobStatus.State.DONE);
+        assertEquals(List.of((byte) 1, (byte) 3), saved);
+    }
+
+    private void awaitState(String jobId, ProfileImageJobStatus.State state) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (System.nanoTime() < deadline) {
+            ProfileImageJobStatus status = processor.getStatus(USER);
+            if (status != null && status.getJobId().equals(jobId) && status.getState() == state) {
+                return;
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("job " + jobId + " did not reach " + state + ": " + processor.getStatus(USER));
+    }
+
+    private static MockMultipartFile upload(int marker) {
+        return new MockMultipartFile("file", "a.jpg", "image/jpeg", new byte[] {(byte) marker});
+    }
+}
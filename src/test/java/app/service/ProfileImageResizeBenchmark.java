@@ -0,0 +1,200 @@
+package app.service;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Thumbnailator against the area-average engine (Vector API and scalar kernels)
+ * on a 960x720 decoded upload, the largest source the decoder hands over for
+ * the 240 px avatar size.
+ *
+ * {@link #main} first prints the quality of each engine, then runs the JMH
+ * throughput benchmarks:
+ * <pre>
+ * mvn -Dexec.skip=true test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ * java --add-modules jdk.incubator.vector -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *     app.service.ProfileImageResizeBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class ProfileImageResizeBenchmark {
+
+    private static final int[] SIZES = {32, 64, 120, 240};
+
+    @Param({"thumbnailator", "area-average", "area-average-scalar"})
+    public String engine;
+
+    @Param({"32", "120", "240"})
+    public int size;
+
+    private ProfileImageResizer resizer;
+    private BufferedImage source;
+    private BufferedImage prepared;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        resizer = engine(engine);
+        source = photo(960, 720);
+        prepared = resizer.prepare(source);
+    }
+
+    // One size from the prepared source, as each variant task does
+    @Benchmark
+    public BufferedImage resize() throws IOException {
+        return resizer.resize(prepared, size);
+    }
+
+    // Preparation plus every configured size, as one upload does (independent of the size parameter)
+    @Benchmark
+    public int upload() throws IOException {
+        BufferedImage ready = resizer.prepare(source);
+        int pixels = 0;
+        for (int s : SIZES) {
+            pixels += resizer.resize(ready, s).getWidth();
+        }
+        return pixels;
+    }
+
+    public static void main(String[] args) throws Exception {
+        printQuality();
+        new Runner(new OptionsBuilder()
+                .include(ProfileImageResizeBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+
+    // ---------------------------
+    // QUALITY
+    // ---------------------------
+
+    /**
+     * PSNR of each engine against the exact area average (the mean of the source
+     * pixels each output pixel covers, in double precision), and after scaling
+     * back up to the source size with bicubic interpolation.
+     */
+    static void printQuality() throws IOException {
+        BufferedImage source = new AreaAverageResizer(AreaAverageResizer.SCALAR, null).prepare(photo(960, 720));
+        System.out.printf("%-20s %5s %14s %14s%n", "engine", "size", "exact PSNR dB", "round-trip dB");
+        for (String name : new String[] {"thumbnailator", "area-average", "area-average-scalar"}) {
+            ProfileImageResizer resizer = engine(name);
+            for (int size : SIZES) {
+                BufferedImage resized = resizer.resize(source, size);
+                double exact = psnr(resized, exactAreaAverage(source, resized.getWidth(), resized.getHeight()));
+                double roundTrip = psnr(source, upscale(resized, source.getWidth(), source.getHeight()));
+                System.out.printf("%-20s %5d %14.2f %14.2f%n", name, size, exact, roundTrip);
+            }
+        }
+    }
+
+    static double psnr(BufferedImage a, BufferedImage b) {
+        double squaredError = 0;
+        for (int y = 0; y < a.getHeight(); y++) {
+            for (int x = 0; x < a.getWidth(); x++) {
+                int p = a.getRGB(x, y);
+                int q = b.getRGB(x, y);
+                for (int shift = 0; shift < 24; shift += 8) {
+                    double d = ((p >> shift) & 0xff) - ((q >> shift) & 0xff);
+                    squaredError += d * d;
+                }
+            }
+        }
+        double mse = squaredError / (a.getWidth() * a.getHeight() * 3.0);
+        return mse == 0 ? Double.POSITIVE_INFINITY : 10 * Math.log10(255.0 * 255.0 / mse);
+    }
+
+    private static BufferedImage exactAreaAverage(BufferedImage source, int width, int height) {
+        double sx = (double) source.getWidth() / width;
+        double sy = (double) source.getHeight() / height;
+        BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        for (int ty = 0; ty < height; ty++) {
+            for (int tx = 0; tx < width; tx++) {
+                double[] sum = new double[3];
+                double area = 0;
+                for (int y = (int) (ty * sy); y < Math.min(source.getHeight(), Math.ceil((ty + 1) * sy)); y++) {
+                    double wy = Math.min(y + 1, (ty + 1) * sy) - Math.max(y, ty * sy);
+                    for (int x = (int) (tx * sx); x < Math.min(source.getWidth(), Math.ceil((tx + 1) * sx)); x++) {
+                        double w = wy * (Math.min(x + 1, (tx + 1) * sx) - Math.max(x, tx * sx));
+                        int p = source.getRGB(x, y);
+                        sum[0] += w * ((p >> 16) & 0xff);
+                        sum[1] += w * ((p >> 8) & 0xff);
+                        sum[2] += w * (p & 0xff);
+                        area += w;
+                    }
+                }
+                int r = (int) Math.round(sum[0] / area);
+                int g = (int) Math.round(sum[1] / area);
+                int b = (int) Math.round(sum[2] / area);
+                out.setRGB(tx, ty, r << 16 | g << 8 | b);
+            }
+        }
+        return out;
+    }
+
+    private static BufferedImage upscale(BufferedImage image, int width, int height) {
+        BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.drawImage(image, 0, 0, width, height, null);
+        g.dispose();
+        return out;
+    }
+
+    // ---------------------------
+    // FIXTURES
+    // ---------------------------
+
+    private static ProfileImageResizer engine(String name) {
+        return switch (name) {
+            case "thumbnailator" -> new ThumbnailatorResizer();
+            case "area-average" -> new AreaAverageResizer(new ThumbnailatorResizer());
+            case "area-average-scalar" -> new AreaAverageResizer(AreaAverageResizer.SCALAR, new ThumbnailatorResizer());
+            default -> throw new IllegalArgumentException(name);
+        };
+    }
+
+    // Gradient, hard-edged shapes and fine noise: smooth areas, edges and texture
+    static BufferedImage photo(int width, int height) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_3BYTE_BGR);
+        Graphics2D g = image.createGraphics();
+        g.setPaint(new GradientPaint(0, 0, Color.ORANGE, width, height, Color.BLUE));
+        g.fillRect(0, 0, width, height);
+        Random random = new Random(42);
+        for (int i = 0; i < 400; i++) {
+            g.setColor(new Color(random.nextInt()));
+            g.fillOval(random.nextInt(width), random.nextInt(height), random.nextInt(80), random.nextInt(80));
+        }
+        g.dispose();
+        for (int i = 0; i < width * height / 8; i++) {
+            int x = random.nextInt(width);
+            int y = random.nextInt(height);
+            image.setRGB(x, y, image.getRGB(x, y) ^ (random.nextInt() & 0x1f1f1f));
+        }
+        return image;
+    }
+}